@@ -0,0 +1,72 @@
+package com.wiley.benchmark;
+
+import com.wiley.model.Money;
+import com.wiley.model.Order;
+import com.wiley.service.FlooringService;
+import com.wiley.service.FlooringServiceImpl;
+import com.wiley.service.PricingBatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-pricing many orders: one Order at a time through the calculate methods,
+ * against one columnar batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BatchPricingBenchmark {
+    @Param({"10000", "1000000"})
+    public int orders;
+
+    // the calculations don't touch the DAOs
+    private final FlooringService service = new FlooringServiceImpl(null, null, null);
+    private Order[] orderObjects;
+    private PricingBatch batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        orderObjects = new Order[orders];
+        batch = new PricingBatch(orders);
+        for (int i = 0; i < orders; i++) {
+            long area = 10_000 + random.nextInt(90_000);
+            long cost = 175 + random.nextInt(400);
+            long laborCost = 210 + random.nextInt(300);
+            long taxRate = 445 + random.nextInt(2_000);
+            batch.set(i, area, cost, laborCost, taxRate);
+
+            Order order = new Order(i + 1);
+            order.setArea(Money.toBigDecimal(area));
+            order.setCostPerSquareFoot(Money.toBigDecimal(cost));
+            order.setLaborCostPerSquareFoot(Money.toBigDecimal(laborCost));
+            order.setTaxRate(Money.toBigDecimal(taxRate));
+            orderObjects[i] = order;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal perOrder() {
+        BigDecimal last = null;
+        for (Order order : orderObjects) {
+            order.setMaterialCost(service.calculateMaterialCost(order));
+            order.setLaborCost(service.calculateLaborCost(order));
+            order.setTax(service.calculateTax(order));
+            last = service.calculateTotal(order);
+            order.setTotal(last);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public long batch() {
+        service.priceBatch(batch);
+        return batch.getTotalCents(orders - 1);
+    }
+}
@@ -0,0 +1,63 @@
+package com.wiley.benchmark;
+
+import com.wiley.dao.OrderDao;
+import com.wiley.dao.OrderDaoBinaryImpl;
+import com.wiley.dao.OrderDaoFileImpl;
+import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.dao.OrderFileConverter;
+import com.wiley.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one day from the binary format against reading it from the text file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BinaryOrderDaoBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int ordersPerDay;
+
+    private final LocalDate date = OrderFileGenerator.FIRST_DATE;
+    private Path folder;
+    // no cache on either side: every load reads and decodes the file
+    private OrderDaoFileImpl textDao;
+    private OrderDao binaryDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, OrderDataPersistenceException {
+        folder = BenchmarkFiles.createTempFolder("binary");
+        Path text = folder.resolve("Text");
+        Path binary = folder.resolve("Binary");
+        new OrderFileGenerator(42).generate(text, date, 1, ordersPerDay);
+        OrderFileConverter.toBinary(text.toString(), binary.toString());
+
+        textDao = new OrderDaoFileImpl(text.toString(), folder.resolve("Backup").toString(), 0, 0);
+        textDao.setMemoryMappedReads(true);
+        binaryDao = new OrderDaoBinaryImpl(binary.toString(), folder.resolve("Backup").toString(), 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(folder);
+    }
+
+    @Benchmark
+    public List<Order> loadText() throws OrderDataPersistenceException {
+        return textDao.getAllOrdersByDay(date);
+    }
+
+    @Benchmark
+    public List<Order> loadBinary() throws OrderDataPersistenceException {
+        return binaryDao.getAllOrdersByDay(date);
+    }
+}
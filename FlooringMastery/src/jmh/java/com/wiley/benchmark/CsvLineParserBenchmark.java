@@ -0,0 +1,49 @@
+package com.wiley.benchmark;
+
+import com.wiley.dao.CsvLineParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading one order line: String.split() plus new BigDecimal(String), as the
+ * DAOs used to do, against the in-place CsvLineParser.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvLineParserBenchmark {
+    private final String line = "2,Doctor Who,WA,9.25,Wood,243.00,5.15,4.75,1251.45,1154.25,216.51,2622.21";
+    private final CsvLineParser parser = new CsvLineParser();
+
+    @Benchmark
+    public void split(Blackhole blackhole) {
+        String[] tokens = line.split(",");
+        blackhole.consume(Integer.parseInt(tokens[0]));
+        blackhole.consume(tokens[1]);
+        blackhole.consume(tokens[2]);
+        blackhole.consume(new BigDecimal(tokens[3]));
+        blackhole.consume(tokens[4]);
+        for (int i = 5; i < 12; i++) {
+            blackhole.consume(new BigDecimal(tokens[i]));
+        }
+    }
+
+    @Benchmark
+    public void csvLineParser(Blackhole blackhole) {
+        CsvLineParser fields = parser.reset(line);
+        blackhole.consume(fields.nextInt());
+        blackhole.consume(fields.nextString());
+        blackhole.consume(fields.nextString());
+        blackhole.consume(fields.nextDecimal());
+        blackhole.consume(fields.nextString());
+        for (int i = 5; i < 12; i++) {
+            blackhole.consume(fields.nextDecimal());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.wiley.benchmark;
+
+import com.wiley.dao.OrderDaoFileImpl;
+import com.wiley.dao.OrderDataPersistenceException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backup of a whole order history, on the calling thread (parallelism 0)
+ * and on fork/join pools of increasing size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+    @Param({"365"})
+    public int days;
+
+    @Param({"200"})
+    public int ordersPerDay;
+
+    @Param({"0", "2", "4", "8"})
+    public int parallelism;
+
+    private Path folder;
+    private OrderDaoFileImpl dao;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchmarkFiles.createTempFolder("export");
+        Path orders = folder.resolve("Orders");
+        new OrderFileGenerator(42).generate(orders, OrderFileGenerator.FIRST_DATE, days, ordersPerDay);
+        dao = new OrderDaoFileImpl(orders.toString(), folder.resolve("Backup").toString());
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+            dao.setExportExecutor(pool, parallelism * 2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        BenchmarkFiles.deleteRecursively(folder);
+    }
+
+    @Benchmark
+    public void exportAll() throws OrderDataPersistenceException {
+        dao.exportAll();
+    }
+}
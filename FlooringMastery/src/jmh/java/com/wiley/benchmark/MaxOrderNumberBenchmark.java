@@ -0,0 +1,65 @@
+package com.wiley.benchmark;
+
+import com.wiley.dao.OrderDaoFileImpl;
+import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.dao.OrderNumberSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of finding the highest order number: the full scan of every
+ * day file (sequence file missing) against reading the persisted sequence.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaxOrderNumberBenchmark {
+    @Param({"365", "3650"})
+    public int days;
+
+    @Param({"50"})
+    public int ordersPerDay;
+
+    private Path folder;
+    private Path orders;
+    private OrderDaoFileImpl dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        folder = BenchmarkFiles.createTempFolder("max");
+        orders = folder.resolve("Orders");
+        new OrderFileGenerator(42).generate(orders, OrderFileGenerator.FIRST_DATE, days, ordersPerDay);
+        // no cache, so every scan reads the files again
+        dao = new OrderDaoFileImpl(orders.toString(), folder.resolve("Backup").toString(), 0, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(folder);
+    }
+
+    @State(Scope.Thread)
+    public static class MissingSequence {
+        @Setup(Level.Invocation)
+        public void deleteSequence(MaxOrderNumberBenchmark benchmark) throws IOException {
+            Files.deleteIfExists(benchmark.orders.resolve(OrderNumberSequence.FILE_NAME));
+        }
+    }
+
+    @Benchmark
+    public int fullScan(MissingSequence missingSequence) throws OrderDataPersistenceException {
+        return dao.getMaxOrderNumber();
+    }
+
+    @Benchmark
+    public int persistedSequence() throws OrderDataPersistenceException {
+        return dao.getMaxOrderNumber();
+    }
+}
@@ -0,0 +1,64 @@
+package com.wiley.benchmark;
+
+import com.wiley.dao.OrderDaoFileImpl;
+import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading and rewriting one day file, from a handful of orders up to a million.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderDaoBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int ordersPerDay;
+
+    @Param({"false", "true"})
+    public boolean memoryMappedReads;
+
+    private final LocalDate date = OrderFileGenerator.FIRST_DATE;
+    private Path folder;
+    // no cache: every load reads and parses the file
+    private OrderDaoFileImpl uncachedDao;
+    // the day stays cached: every save only pays for rewriting the file
+    private OrderDaoFileImpl cachedDao;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, OrderDataPersistenceException {
+        folder = BenchmarkFiles.createTempFolder("dao");
+        Path orders = folder.resolve("Orders");
+        new OrderFileGenerator(42).generate(orders, date, 1, ordersPerDay);
+
+        uncachedDao = new OrderDaoFileImpl(orders.toString(), folder.resolve("Backup").toString(), 0, 0);
+        uncachedDao.setMemoryMappedReads(memoryMappedReads);
+        cachedDao = new OrderDaoFileImpl(orders.toString(), folder.resolve("Backup").toString(), 1, Long.MAX_VALUE);
+        order = cachedDao.getByOrderAndDate(1, date);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(folder);
+    }
+
+    @Benchmark
+    public List<Order> load() throws OrderDataPersistenceException {
+        return uncachedDao.getAllOrdersByDay(date);
+    }
+
+    @Benchmark
+    public Order save() throws OrderDataPersistenceException {
+        return cachedDao.updateOrder(order.getOrderNumber(), date, order);
+    }
+}
@@ -0,0 +1,101 @@
+package com.wiley.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Writes synthetic Orders_MMddyyyy.txt files in the same format as the real ones,
+ * so benchmark results can be reproduced locally. The data only depends on the
+ * seed, so two runs with the same arguments write the same files.
+ *
+ * Usage: java -cp target/benchmarks.jar com.wiley.benchmark.OrderFileGenerator
+ *        &lt;folder&gt; &lt;days&gt; &lt;ordersPerDay&gt; [firstDate yyyy-MM-dd]
+ */
+public class OrderFileGenerator {
+    public static final String HEADER = "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total";
+    public static final LocalDate FIRST_DATE = LocalDate.of(2025, 1, 1);
+    private static final String[][] TAXES = {
+            {"TX", "4.45"}, {"WA", "9.25"}, {"KY", "6.00"}, {"CA", "25.00"}
+    };
+    private static final String[][] PRODUCTS = {
+            {"Carpet", "2.25", "2.10"}, {"Laminate", "1.75", "2.10"}, {"Tile", "3.50", "4.15"}, {"Wood", "5.15", "4.75"}
+    };
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private final Random random;
+
+    public OrderFileGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Writes one file per day, order numbers running on from one day to the next.
+     *
+     * @param folder the orders folder to write to, created if needed
+     * @param firstDate the date of the first day file
+     * @param days number of consecutive days to write
+     * @param ordersPerDay number of orders in each day file
+     * @return the highest order number written
+     * @throws IOException if a file cannot be written
+     */
+    public int generate(Path folder, LocalDate firstDate, int days, int ordersPerDay) throws IOException {
+        Files.createDirectories(folder);
+        int orderNumber = 0;
+        for (int day = 0; day < days; day++) {
+            LocalDate date = firstDate.plusDays(day);
+            Path file = folder.resolve("Orders_" + date.format(FORMATTER) + ".txt");
+            try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                out.write(HEADER);
+                out.newLine();
+                for (int i = 0; i < ordersPerDay; i++) {
+                    out.write(orderLine(++orderNumber));
+                    out.newLine();
+                }
+            }
+        }
+        return orderNumber;
+    }
+
+    /**
+     * @param orderNumber the order number of the line
+     * @return a random but consistently priced order line
+     */
+    public String orderLine(int orderNumber) {
+        String[] tax = TAXES[random.nextInt(TAXES.length)];
+        String[] product = PRODUCTS[random.nextInt(PRODUCTS.length)];
+        BigDecimal area = BigDecimal.valueOf(10000 + random.nextInt(90000), 2);
+        BigDecimal taxRate = new BigDecimal(tax[1]);
+        BigDecimal cost = new BigDecimal(product[1]);
+        BigDecimal laborCost = new BigDecimal(product[2]);
+
+        // same formulas as FlooringServiceImpl
+        BigDecimal materialTotal = area.multiply(cost).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal laborTotal = area.multiply(laborCost).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal percentage = taxRate.setScale(0, RoundingMode.HALF_UP).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+        BigDecimal taxTotal = materialTotal.add(laborTotal).multiply(percentage).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal total = materialTotal.add(laborTotal).add(taxTotal);
+
+        return orderNumber + ",Customer " + orderNumber + "," + tax[0] + "," + taxRate + "," + product[0]
+                + "," + area + "," + cost + "," + laborCost + "," + materialTotal + "," + laborTotal
+                + "," + taxTotal + "," + total;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: OrderFileGenerator <folder> <days> <ordersPerDay> [firstDate yyyy-MM-dd]");
+            return;
+        }
+        LocalDate firstDate = args.length > 3 ? LocalDate.parse(args[3]) : FIRST_DATE;
+        int maxOrderNumber = new OrderFileGenerator(42).generate(
+                Paths.get(args[0]), firstDate, Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        System.out.println("Wrote orders 1 to " + maxOrderNumber + " into " + args[0]);
+    }
+}
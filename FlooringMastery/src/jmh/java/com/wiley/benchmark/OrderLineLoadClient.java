@@ -0,0 +1,122 @@
+package com.wiley.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for a running order API (App --api). Opens idle connections that just stay
+ * open, plus busy connections that each pipeline a batch of ADD requests, read the
+ * answers, pipeline a GET for every added order and read those, over and over.
+ * Prints the requests per second and the average time of a pipelined batch.
+ *
+ * The orders are added to the day after tomorrow, so run it against a copy of the data.
+ *
+ * Usage: java -cp target/benchmarks.jar com.wiley.benchmark.OrderLineLoadClient
+ *        [host] [port] [busyConnections] [idleConnections] [pipelineDepth] [batchesPerConnection]
+ */
+public class OrderLineLoadClient {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 4041;
+        int busyConnections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int idleConnections = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int pipelineDepth = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        int batches = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+        String date = LocalDate.now().plusDays(2).format(FORMATTER);
+
+        List<Socket> idle = new ArrayList<>();
+        ExecutorService clients = Executors.newFixedThreadPool(busyConnections);
+        LongAdder requests = new LongAdder();
+        LongAdder batchNanos = new LongAdder();
+        try {
+            for (int i = 0; i < idleConnections; i++) {
+                idle.add(new Socket(host, port));
+            }
+            System.out.println(idleConnections + " idle connections open");
+
+            long start = System.nanoTime();
+            List<Future<?>> results = new ArrayList<>();
+            for (int client = 0; client < busyConnections; client++) {
+                String customer = "Load Client " + client;
+                results.add(clients.submit(() -> {
+                    runClient(host, port, date, customer, pipelineDepth, batches, requests, batchNanos);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long batchCount = (long) busyConnections * batches;
+            System.out.printf("%d requests in %.2f s: %.0f requests/s, %.2f ms per batch of %d ADDs and %d GETs%n",
+                    requests.sum(), seconds, requests.sum() / seconds,
+                    batchNanos.sum() / 1e6 / batchCount, pipelineDepth, pipelineDepth);
+        } finally {
+            clients.shutdownNow();
+            for (Socket socket : idle) {
+                socket.close();
+            }
+        }
+    }
+
+    private static void runClient(String host, int port, String date, String customer, int pipelineDepth, int batches,
+                                  LongAdder requests, LongAdder batchNanos) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String[] orderNumbers = new String[pipelineDepth];
+            for (int batch = 0; batch < batches; batch++) {
+                long start = System.nanoTime();
+                StringBuilder adds = new StringBuilder();
+                for (int i = 0; i < pipelineDepth; i++) {
+                    adds.append("ADD|").append(date).append('|').append(customer).append("|TX|Wood|100\n");
+                }
+                out.write(adds.toString());
+                out.flush();
+                for (int i = 0; i < pipelineDepth; i++) {
+                    // OK|orderNumber|...
+                    orderNumbers[i] = expectOk(in.readLine()).split("\\|")[1];
+                }
+
+                StringBuilder gets = new StringBuilder();
+                for (String orderNumber : orderNumbers) {
+                    gets.append("GET|").append(date).append('|').append(orderNumber).append('\n');
+                }
+                out.write(gets.toString());
+                out.flush();
+                for (int i = 0; i < pipelineDepth; i++) {
+                    expectOk(in.readLine());
+                }
+                batchNanos.add(System.nanoTime() - start);
+                requests.add(2L * pipelineDepth);
+            }
+            out.write("QUIT\n");
+            out.flush();
+            in.readLine();
+        }
+    }
+
+    private static String expectOk(String response) throws IOException {
+        if (response == null || !response.startsWith("OK")) {
+            throw new IOException("Unexpected response: " + response);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.wiley.benchmark;
+
+import com.wiley.service.OrderNumberAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order number allocation under contention. The synchronized counter is the
+ * old "maxId++" made thread-safe the naive way; compare it with the atomic
+ * counter (block size 1) and per-thread leases as the thread count goes up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderNumberAllocatorBenchmark {
+    @Param({"1", "64"})
+    public int blockSize;
+
+    private OrderNumberAllocator allocator;
+    private int synchronizedMaxId;
+
+    @Setup
+    public void setUp() {
+        allocator = new OrderNumberAllocator(blockSize);
+        allocator.reset(0);
+        synchronizedMaxId = 0;
+    }
+
+    private synchronized int nextSynchronized() {
+        return ++synchronizedMaxId;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int allocator1Thread() {
+        return allocator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int allocator4Threads() {
+        return allocator.next();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int allocatorAllCores() {
+        return allocator.next();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int synchronized1Thread() {
+        return nextSynchronized();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int synchronized4Threads() {
+        return nextSynchronized();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int synchronizedAllCores() {
+        return nextSynchronized();
+    }
+}
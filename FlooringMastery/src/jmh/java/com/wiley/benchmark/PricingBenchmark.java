@@ -0,0 +1,71 @@
+package com.wiley.benchmark;
+
+import com.wiley.model.Order;
+import com.wiley.service.FlooringService;
+import com.wiley.service.FlooringServiceImpl;
+import com.wiley.service.PricingCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per order price calculations of the service layer, and the same
+ * calculations straight on long cents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+    // the calculations don't touch the DAOs
+    private final FlooringService service = new FlooringServiceImpl(null, null, null);
+    private Order order;
+    // not final, so the JIT cannot fold the cents calculation into a constant
+    private long areaHundredths = 24900;
+    private long costPerSquareFootCents = 350;
+    private long laborCostPerSquareFootCents = 415;
+    private long taxRateHundredths = 2500;
+
+    @Setup
+    public void setUp() {
+        order = new Order(1);
+        order.setTaxRate(new BigDecimal("25.00"));
+        order.setArea(new BigDecimal("249.00"));
+        order.setCostPerSquareFoot(new BigDecimal("3.50"));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.15"));
+        order.setMaterialCost(new BigDecimal("871.50"));
+        order.setLaborCost(new BigDecimal("1033.35"));
+        order.setTax(new BigDecimal("476.21"));
+    }
+
+    @Benchmark
+    public BigDecimal calculateMaterialCost() {
+        return service.calculateMaterialCost(order);
+    }
+
+    @Benchmark
+    public BigDecimal calculateLaborCost() {
+        return service.calculateLaborCost(order);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTax() {
+        return service.calculateTax(order);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        return service.calculateTotal(order);
+    }
+
+    @Benchmark
+    public long calculateTotalCents() {
+        long materialCost = PricingCalculator.costCents(areaHundredths, costPerSquareFootCents);
+        long laborCost = PricingCalculator.costCents(areaHundredths, laborCostPerSquareFootCents);
+        return PricingCalculator.totalCents(materialCost, laborCost,
+                PricingCalculator.taxCents(materialCost, laborCost, taxRateHundredths));
+    }
+}
@@ -1,21 +1,45 @@
 package com.wiley;
 
 import com.wiley.controller.FlooringController;
-import com.wiley.dao.*;
+import com.wiley.controller.FlooringSessionServer;
+import com.wiley.controller.OrderLineServer;
 import com.wiley.service.FlooringService;
-import com.wiley.service.FlooringServiceImpl;
-import com.wiley.view.FlooringView;
-import com.wiley.view.UserIO;
-import com.wiley.view.UserIOConsoleImpl;
-import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
+
 public class App {
-    public static void main(String[] args){
-        ApplicationContext ctx =
+    public static void main(String[] args) throws IOException {
+        ConfigurableApplicationContext ctx =
                 new ClassPathXmlApplicationContext("applicationContext.xml");
+        // closing the context writes the orders still waiting in the journals
+        ctx.registerShutdownHook();
+
+        if (args.length > 0 && args[0].equals("--server")) {
+            // App --server [port]: serve the menu to terminals over TCP until the process is stopped
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : FlooringSessionServer.DEFAULT_PORT;
+            FlooringService service = ctx.getBean("serviceLayer", FlooringService.class);
+            try (FlooringSessionServer server = new FlooringSessionServer(service, port)) {
+                System.out.println("Flooring server listening on localhost:" + server.getPort());
+                server.serve();
+            }
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals("--api")) {
+            // App --api [port]: answer the order line protocol (see OrderLineProtocol) until the process is stopped
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : OrderLineServer.DEFAULT_PORT;
+            FlooringService service = ctx.getBean("serviceLayer", FlooringService.class);
+            try (OrderLineServer server = new OrderLineServer(service, port, Runtime.getRuntime().availableProcessors())) {
+                System.out.println("Order API listening on localhost:" + server.getPort());
+                server.serve();
+            }
+            return;
+        }
+
         FlooringController controller = ctx.getBean("controller", FlooringController.class);
         controller.run();
-
+        ctx.close();
     }
 }
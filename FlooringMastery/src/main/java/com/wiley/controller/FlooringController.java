@@ -5,6 +5,7 @@ import com.wiley.model.Order;
 import com.wiley.model.Product;
 import com.wiley.model.Tax;
 import com.wiley.service.FlooringService;
+import com.wiley.service.OrderImportResult;
 import com.wiley.service.OrderInformationInvalidException;
 import com.wiley.service.TaxInformationInvalidException;
 import com.wiley.view.FlooringView;
@@ -13,11 +14,14 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class FlooringController {
     private FlooringView view;
     private FlooringService service;
+    // orders collected before each day of the import is written
+    private static final int IMPORT_BATCH_SIZE = 1000;
 
     public FlooringController(FlooringView view, FlooringService service) {
         this.view = view;
@@ -50,6 +54,9 @@ public class FlooringController {
                         exportAllData();
                         break;
                     case 6:
+                        importOrders();
+                        break;
+                    case 7:
                         keepGoing = false;
                         break;
                     default:
@@ -57,6 +64,12 @@ public class FlooringController {
                 }
             }catch (OrderDataPersistenceException e) {
                 view.displayErrorMessage(e.getMessage());
+            }catch (NoSuchElementException | IllegalStateException e) {
+                //the input ended, there is nobody left to show a menu to
+                throw e;
+            }catch (RuntimeException e) {
+                //a command that failed unexpectedly only ends that command, the menu comes back
+                view.displayErrorMessage("Unexpected error: " + e);
             }
 
         }
@@ -418,6 +431,12 @@ public class FlooringController {
         service.exportAllData();
         view.exportAllDataSuccessBanner();
     }
+    private void importOrders() throws OrderDataPersistenceException {
+        view.importOrdersBanner();
+        String filePath = view.askImportFilePath();
+        OrderImportResult result = service.importOrders(filePath, IMPORT_BATCH_SIZE);
+        view.displayImportResult(result);
+    }
     private void unknownCommand(){
         view.displayUnknownCommandBanner();
     }
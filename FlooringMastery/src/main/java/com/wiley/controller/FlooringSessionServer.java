@@ -0,0 +1,135 @@
+package com.wiley.controller;
+
+import com.wiley.service.FlooringService;
+import com.wiley.view.FlooringView;
+import com.wiley.view.UserIO;
+import com.wiley.view.UserIOStreamImpl;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the flooring menu to many store terminals at once over TCP. Every connection
+ * is a session of its own: a FlooringController and FlooringView reading and writing
+ * lines on the socket, the same menu a console user gets. Each session runs on a
+ * virtual thread, so a session waiting for its clerk to type costs a small stack and
+ * no platform thread, and hundreds of them can be open at once.
+ *
+ * All sessions share one FlooringService, so it and the DAOs behind it must be safe
+ * to use from many threads at once.
+ */
+public class FlooringSessionServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4040;
+    private final FlooringService service;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Opens the server socket on the loopback address, so only this machine can connect.
+     *
+     * @param service the service every session works on
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public FlooringSessionServer(FlooringService service, int port) throws IOException {
+        this(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param service the service every session works on
+     * @param address address and port to listen on
+     * @throws IOException if the address cannot be opened
+     */
+    public FlooringSessionServer(FlooringService service, InetSocketAddress address) throws IOException {
+        this.service = service;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        // the order numbering starts once, for all sessions
+        service.init();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return sessions that are connected right now
+     */
+    public int getSessionCount() {
+        return openSockets.size();
+    }
+
+    /**
+     * Accepts connections and starts a session for each until the server is closed.
+     *
+     * @throws IOException if accepting a connection fails for another reason than closing the server
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            openSockets.add(socket);
+            sessions.execute(() -> runSession(socket));
+        }
+    }
+
+    private void runSession(Socket socket) {
+        try (socket) {
+            UserIO io = new UserIOStreamImpl(socket.getInputStream(), socket.getOutputStream(), StandardCharsets.UTF_8);
+            FlooringView view = new FlooringView(io);
+            try {
+                new FlooringController(view, service).run();
+            } catch (NoSuchElementException | IllegalStateException e) {
+                // the terminal hung up or the server is closing, the session just ends
+            } catch (RuntimeException e) {
+                // the controller reports a failed command and goes on, this is a failure outside
+                // of any command (e.g. while starting the session): tell the terminal and hang up
+                view.displayErrorMessage("The session ended on an unexpected error: " + e);
+            }
+        } catch (IOException e) {
+            // the terminal hung up or the server is closing, the session just ends
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * Stops accepting connections, hangs up every open session and waits for them to end.
+     * Orders a session has already saved stay saved.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
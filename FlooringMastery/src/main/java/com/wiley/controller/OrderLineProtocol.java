@@ -0,0 +1,262 @@
+package com.wiley.controller;
+
+import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.model.Order;
+import com.wiley.model.Product;
+import com.wiley.model.Tax;
+import com.wiley.service.FlooringService;
+import com.wiley.service.OrderInformationInvalidException;
+import com.wiley.service.ProductInformationInvalidException;
+import com.wiley.service.TaxInformationInvalidException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * The commands of the order line protocol, for scripts and other programs instead of
+ * a clerk at the menu. A request is one line, fields separated by '|', dates as MMddyyyy:
+ *
+ *   ADD|date|customerName|state|productType|area
+ *   GET|date|orderNumber
+ *   EDIT|date|orderNumber|customerName|state|productType|area   (an empty field keeps the old value)
+ *   REMOVE|date|orderNumber
+ *   LIST|date
+ *   EXPORT
+ *   QUIT
+ *
+ * Every request gets exactly one response, in the order the requests came in:
+ * "OK|" and the order for ADD, GET, EDIT and REMOVE, "OK|count" followed by that many
+ * order lines for LIST, "OK" for EXPORT, "BYE" for QUIT and "ERR|message" when the
+ * request failed. An order line is
+ *
+ *   orderNumber|date|customerName|state|taxRate|productType|area|costPerSquareFoot|laborCostPerSquareFoot|materialCost|laborCost|tax|total
+ *
+ * Orders go through the same checks as in the menu: a future date, a valid name,
+ * a state and product type we sell, at least the minimum area.
+ */
+public class OrderLineProtocol {
+    public static final String DELIMITER = "|";
+    public static final String QUIT = "QUIT";
+    private static final String NO_SUCH_ORDER = "No such order found.";
+    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final FlooringService service;
+
+    public OrderLineProtocol(FlooringService service) {
+        this.service = service;
+    }
+
+    /**
+     * @param request a request line
+     * @return true if the connection should be closed after answering it
+     */
+    public static boolean isQuit(String request) {
+        // same command field as handle(), so every request answered with BYE ends the connection
+        return fieldsOf(request)[0].equals(QUIT);
+    }
+
+    private static String[] fieldsOf(String request) {
+        return request.trim().split("\\" + DELIMITER, -1);
+    }
+
+    /**
+     * Runs one request. Safe to call from several threads at once.
+     *
+     * @param request one request line, without its line break
+     * @return the response, one or more lines each ending with '\n'
+     */
+    public String handle(String request) {
+        String[] fields = fieldsOf(request);
+        StringBuilder response = new StringBuilder();
+        try {
+            switch (fields[0]) {
+                case "ADD":
+                    expectFields(fields, 6);
+                    appendOrder(response.append("OK" + DELIMITER), addOrder(fields));
+                    break;
+                case "GET":
+                    expectFields(fields, 3);
+                    appendOrder(response.append("OK" + DELIMITER), existingOrder(parseDate(fields[1]), fields[2]));
+                    break;
+                case "EDIT":
+                    expectFields(fields, 7);
+                    appendOrder(response.append("OK" + DELIMITER), editOrder(fields));
+                    break;
+                case "REMOVE":
+                    expectFields(fields, 3);
+                    appendOrder(response.append("OK" + DELIMITER), removeOrder(fields));
+                    break;
+                case "LIST":
+                    expectFields(fields, 2);
+                    List<Order> orders = service.getAllOrdersForDate(parseDate(fields[1]));
+                    response.append("OK" + DELIMITER).append(orders.size()).append('\n');
+                    for (Order order : orders) {
+                        appendOrder(response, order);
+                    }
+                    break;
+                case "EXPORT":
+                    service.exportAllData();
+                    response.append("OK\n");
+                    break;
+                case QUIT:
+                    response.append("BYE\n");
+                    break;
+                default:
+                    throw new OrderInformationInvalidException("Unknown command: " + fields[0]);
+            }
+        } catch (OrderDataPersistenceException | OrderInformationInvalidException
+                 | TaxInformationInvalidException | ProductInformationInvalidException e) {
+            return error(e.getMessage());
+        } catch (DateTimeParseException e) {
+            return error("Dates are written MMddyyyy.");
+        } catch (NumberFormatException e) {
+            return error("Not a number: " + e.getMessage());
+        }
+        return response.toString();
+    }
+
+    private Order addOrder(String[] fields) throws OrderDataPersistenceException, OrderInformationInvalidException,
+            TaxInformationInvalidException, ProductInformationInvalidException {
+        LocalDate date = parseDate(fields[1]);
+        service.validateDateInformation(date);
+        service.validateCustomerNameInformation(fields[2]);
+        service.validateStateInformation(fields[3]);
+        Product product = productOf(fields[4]);
+        BigDecimal area = new BigDecimal(fields[5]);
+        service.validateAreaInformation(area);
+
+        Order order = service.createOrderAndAssignOrderNumber();
+        order.setDate(date);
+        order.setCustomerName(fields[2]);
+        order.setState(fields[3]);
+        order.setTaxRate(service.geByStateAbbreviation(fields[3]).getTaxRate());
+        order.setProductType(product.getProductType());
+        order.setCostPerSquareFoot(product.getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        order.setArea(area);
+        price(order);
+        service.addOrder(order, date);
+        return order;
+    }
+
+    private Order editOrder(String[] fields) throws OrderDataPersistenceException, OrderInformationInvalidException,
+            TaxInformationInvalidException, ProductInformationInvalidException {
+        LocalDate date = parseDate(fields[1]);
+        Order previousOrder = existingOrder(date, fields[2]);
+
+        // a new order, the one we got back may be shared with other readers
+        Order newOrder = new Order(previousOrder.getOrderNumber());
+        newOrder.setDate(date);
+        newOrder.setCustomerName(previousOrder.getCustomerName());
+        newOrder.setState(previousOrder.getState());
+        newOrder.setTaxRate(previousOrder.getTaxRate());
+        newOrder.setProductType(previousOrder.getProductType());
+        newOrder.setCostPerSquareFoot(previousOrder.getCostPerSquareFoot());
+        newOrder.setLaborCostPerSquareFoot(previousOrder.getLaborCostPerSquareFoot());
+        newOrder.setArea(previousOrder.getArea());
+
+        if (!fields[3].isEmpty()) {
+            service.validateCustomerNameInformation(fields[3]);
+            newOrder.setCustomerName(fields[3]);
+        }
+        if (!fields[4].isEmpty() && !fields[4].equals(previousOrder.getState())) {
+            service.validateStateInformation(fields[4]);
+            Tax tax = service.geByStateAbbreviation(fields[4]);
+            newOrder.setState(fields[4]);
+            newOrder.setTaxRate(tax.getTaxRate());
+        }
+        if (!fields[5].isEmpty() && !fields[5].equals(previousOrder.getProductType())) {
+            Product product = productOf(fields[5]);
+            newOrder.setProductType(product.getProductType());
+            newOrder.setCostPerSquareFoot(product.getCostPerSquareFoot());
+            newOrder.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        }
+        if (!fields[6].isEmpty()) {
+            BigDecimal area = new BigDecimal(fields[6]);
+            service.validateAreaInformation(area);
+            newOrder.setArea(area);
+        }
+
+        // only the name changed: keep the amounts the order was sold at, like the menu does
+        if (newOrder.getState().equals(previousOrder.getState())
+                && newOrder.getProductType().equals(previousOrder.getProductType())
+                && newOrder.getArea().compareTo(previousOrder.getArea()) == 0) {
+            newOrder.setMaterialCost(previousOrder.getMaterialCost());
+            newOrder.setLaborCost(previousOrder.getLaborCost());
+            newOrder.setTax(previousOrder.getTax());
+            newOrder.setTotal(previousOrder.getTotal());
+        } else {
+            price(newOrder);
+        }
+        // another connection may have removed the order since we read it
+        if (service.editOrder(date, newOrder) == null) {
+            throw new OrderDataPersistenceException(NO_SUCH_ORDER);
+        }
+        return newOrder;
+    }
+
+    private Order removeOrder(String[] fields) throws OrderDataPersistenceException {
+        Order removedOrder = service.removeOrder(Integer.parseInt(fields[2]), parseDate(fields[1]));
+        if (removedOrder == null) {
+            throw new OrderDataPersistenceException(NO_SUCH_ORDER);
+        }
+        return removedOrder;
+    }
+
+    // the file dao throws for a missing order, other daos return null
+    private Order existingOrder(LocalDate date, String orderNumber) throws OrderDataPersistenceException {
+        Order order = service.getOrder(Integer.parseInt(orderNumber), date);
+        if (order == null) {
+            throw new OrderDataPersistenceException(NO_SUCH_ORDER);
+        }
+        return order;
+    }
+
+    private Product productOf(String productType) throws OrderDataPersistenceException, ProductInformationInvalidException {
+        Product product = service.getByProductType(productType);
+        if (product == null) {
+            throw new ProductInformationInvalidException("Unknown product type: " + productType);
+        }
+        return product;
+    }
+
+    private void price(Order order) {
+        order.setMaterialCost(service.calculateMaterialCost(order));
+        order.setLaborCost(service.calculateLaborCost(order));
+        order.setTax(service.calculateTax(order));
+        order.setTotal(service.calculateTotal(order));
+    }
+
+    private LocalDate parseDate(String date) {
+        return LocalDate.parse(date, FORMATTER);
+    }
+
+    private static void expectFields(String[] fields, int count) throws OrderInformationInvalidException {
+        if (fields.length != count) {
+            throw new OrderInformationInvalidException(fields[0] + " takes " + (count - 1) + " fields.");
+        }
+    }
+
+    private void appendOrder(StringBuilder response, Order order) {
+        response.append(order.getOrderNumber()).append(DELIMITER)
+                .append(order.getDate() == null ? "" : order.getDate().format(FORMATTER)).append(DELIMITER)
+                .append(order.getCustomerName()).append(DELIMITER)
+                .append(order.getState()).append(DELIMITER)
+                .append(order.getTaxRate()).append(DELIMITER)
+                .append(order.getProductType()).append(DELIMITER)
+                .append(order.getArea()).append(DELIMITER)
+                .append(order.getCostPerSquareFoot()).append(DELIMITER)
+                .append(order.getLaborCostPerSquareFoot()).append(DELIMITER)
+                .append(order.getMaterialCost()).append(DELIMITER)
+                .append(order.getLaborCost()).append(DELIMITER)
+                .append(order.getTax()).append(DELIMITER)
+                .append(order.getTotal()).append('\n');
+    }
+
+    private static String error(String message) {
+        // one line per response, whatever the message holds
+        return "ERR" + DELIMITER + String.valueOf(message).replace('\n', ' ').replace('\r', ' ') + "\n";
+    }
+}
@@ -0,0 +1,349 @@
+package com.wiley.controller;
+
+import com.wiley.service.FlooringService;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the {@link OrderLineProtocol} over TCP without a thread per connection.
+ *
+ * One selector thread (the one calling {@link #serve()}) does all the socket work:
+ * it accepts connections, reads request lines and writes responses back. A connection
+ * that is just open and quiet costs a selection key and nothing else, so thousands
+ * of them can wait on one thread. Requests run on a small pool of worker threads.
+ *
+ * A client may pipeline, i.e. send many requests without waiting for the answers.
+ * The requests of one connection run one after the other on at most one worker at a
+ * time, so its responses come back in request order, while different connections run
+ * in parallel. Once a connection has too many requests waiting for their responses to
+ * be written, we stop reading from it until the client catches up.
+ */
+public class OrderLineServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4041;
+    // requests a connection may have waiting, read but not answered and written, before we stop reading it
+    private static final int MAX_UNANSWERED_REQUESTS = 256;
+    private static final int MAX_LINE_LENGTH = 8192;
+    private final OrderLineProtocol protocol;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final ExecutorService workers;
+    // connections a worker is done with, their interest ops are updated on the selector thread
+    private final Queue<Connection> changedConnections = new ConcurrentLinkedQueue<>();
+    // selector thread only, every connection reads through it
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean closed = false;
+
+    /**
+     * Opens the server socket on the loopback address, so only this machine can connect.
+     *
+     * @param service the service the requests run against
+     * @param port port to listen on, 0 for any free port
+     * @param workerThreads threads the requests run on
+     * @throws IOException if the port cannot be opened
+     */
+    public OrderLineServer(FlooringService service, int port, int workerThreads) throws IOException {
+        this(service, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), workerThreads);
+    }
+
+    /**
+     * @param service the service the requests run against
+     * @param address address and port to listen on
+     * @param workerThreads threads the requests run on
+     * @throws IOException if the address cannot be opened
+     */
+    public OrderLineServer(FlooringService service, InetSocketAddress address, int workerThreads) throws IOException {
+        this.protocol = new OrderLineProtocol(service);
+        service.init();
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-line-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * @return connections that are open right now
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Runs the selector loop on the calling thread until the server is closed.
+     *
+     * @throws IOException if the selector fails
+     */
+    public void serve() throws IOException {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("The server is already serving or closed.");
+        }
+        try {
+            while (!closed) {
+                selector.select();
+                Connection changed;
+                while ((changed = changedConnections.poll()) != null) {
+                    updateInterest(changed);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        accept();
+                    } else if (key.isValid()) {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                read(connection);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(connection);
+                            }
+                            updateInterest(connection);
+                        } catch (IOException e) {
+                            // the client went away or sent garbage, only this connection is dropped
+                            closeConnection(connection);
+                        }
+                    }
+                }
+            }
+        } finally {
+            release();
+            stopped.countDown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        // responses are small and the client is waiting for them
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connectionCount.incrementAndGet();
+    }
+
+    private void read(Connection connection) throws IOException {
+        readBuffer.clear();
+        int read = connection.channel.read(readBuffer);
+        if (read < 0) {
+            // the client is done sending, answer what it sent and then hang up
+            connection.inputEnded = true;
+            return;
+        }
+        byte[] bytes = readBuffer.array();
+        int lineStart = 0;
+        for (int i = 0; i < read; i++) {
+            if (bytes[i] == '\n') {
+                connection.appendToLine(bytes, lineStart, i - lineStart);
+                connection.endLine();
+                lineStart = i + 1;
+            }
+        }
+        connection.appendToLine(bytes, lineStart, read - lineStart);
+        connection.schedule();
+    }
+
+    private void write(Connection connection) throws IOException {
+        ByteBuffer response;
+        while ((response = connection.responses.peek()) != null) {
+            connection.channel.write(response);
+            if (response.hasRemaining()) {
+                // the socket buffer is full, the rest goes out when it is writable again
+                return;
+            }
+            connection.responses.poll();
+            connection.unanswered.decrementAndGet();
+        }
+    }
+
+    // selector thread only
+    private void updateInterest(Connection connection) {
+        SelectionKey key = connection.key;
+        if (!key.isValid()) {
+            return;
+        }
+        boolean allWritten = connection.responses.isEmpty();
+        boolean allAnswered = connection.quit || (connection.requests.isEmpty() && !connection.scheduled.get());
+        if ((connection.quit || connection.inputEnded) && allAnswered && allWritten) {
+            closeConnection(connection);
+            return;
+        }
+        int ops = 0;
+        if (!connection.quit && !connection.inputEnded && connection.unanswered.get() < MAX_UNANSWERED_REQUESTS) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (!allWritten) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.key.isValid()) {
+            connection.key.cancel();
+            connectionCount.decrementAndGet();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // nothing left to do with it
+        }
+    }
+
+    /**
+     * Stops accepting connections, hangs up every open connection and waits for the
+     * selector loop to end. Requests that already ran stay done.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (started.compareAndSet(false, true)) {
+            // never served, nobody else will clean up
+            release();
+            return;
+        }
+        selector.wakeup();
+        try {
+            stopped.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void release() throws IOException {
+        workers.shutdown();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                closeConnection((Connection) key.attachment());
+            }
+        }
+        serverChannel.close();
+        selector.close();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Connection implements Runnable {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        // selector thread only: the bytes of a request line that has not fully arrived yet
+        private byte[] line = new byte[0];
+        private int lineLength = 0;
+        private boolean inputEnded = false;
+        // request lines waiting for the worker, in the order they came in
+        private final Queue<String> requests = new ConcurrentLinkedQueue<>();
+        // responses waiting for the selector thread to write them, in the same order
+        private final Queue<ByteBuffer> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger unanswered = new AtomicInteger();
+        // true while the connection is queued on or running on a worker
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean quit = false;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void appendToLine(byte[] bytes, int offset, int length) throws IOException {
+            if (lineLength + length > MAX_LINE_LENGTH) {
+                throw new IOException("Request line too long.");
+            }
+            if (lineLength + length > line.length) {
+                line = Arrays.copyOf(line, Math.min(MAX_LINE_LENGTH, Math.max(lineLength + length, line.length * 2)));
+            }
+            System.arraycopy(bytes, offset, line, lineLength, length);
+            lineLength += length;
+        }
+
+        private void endLine() {
+            int length = lineLength;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            String request = new String(line, 0, length, StandardCharsets.UTF_8);
+            lineLength = 0;
+            if (!request.isBlank()) {
+                unanswered.incrementAndGet();
+                requests.add(request);
+            }
+        }
+
+        private void schedule() {
+            if (!requests.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // closing, the connection is about to be hung up
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        // on a worker: answer every request waiting so far, in order
+        @Override
+        public void run() {
+            String request;
+            while (!quit && (request = requests.poll()) != null) {
+                String response;
+                try {
+                    response = protocol.handle(request);
+                } catch (RuntimeException e) {
+                    response = "ERR" + OrderLineProtocol.DELIMITER + "Internal error.\n";
+                }
+                responses.add(StandardCharsets.UTF_8.encode(response));
+                if (OrderLineProtocol.isQuit(request)) {
+                    quit = true;
+                }
+            }
+            scheduled.set(false);
+            // a request may have come in after the last poll but before the flag was cleared
+            if (!quit) {
+                schedule();
+            }
+            changedConnections.add(this);
+            selector.wakeup();
+        }
+    }
+}
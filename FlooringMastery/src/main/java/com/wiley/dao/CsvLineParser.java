@@ -0,0 +1,165 @@
+package com.wiley.dao;
+
+import java.math.BigDecimal;
+
+/**
+ * Reads the comma separated fields of one line of an order, tax or product file
+ * in place, left to right, without splitting the line into substrings first.
+ * Decimals such as "871.50" are parsed straight from the characters into an
+ * unscaled long and a scale, so the resulting BigDecimal keeps the exact
+ * value and scale that new BigDecimal(String) would give.
+ * A parser instance is not thread-safe, each thread needs its own.
+ */
+public final class CsvLineParser {
+    public static final char DELIMITER = ',';
+    // more digits than this may not fit in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private CharSequence line;
+    private int position;
+    private int end;
+
+    public CsvLineParser() {
+    }
+
+    public CsvLineParser(CharSequence line) {
+        reset(line);
+    }
+
+    /**
+     * Starts reading a new line from its first field.
+     *
+     * @param line the line to read, without its line terminator
+     * @return this parser
+     */
+    public CsvLineParser reset(CharSequence line) {
+        return reset(line, 0, line.length());
+    }
+
+    /**
+     * Starts reading the line stored between start and end of a bigger buffer.
+     *
+     * @param buffer the buffer holding the line
+     * @param start index of the first character of the line
+     * @param end index right after the last character of the line
+     * @return this parser
+     */
+    public CsvLineParser reset(CharSequence buffer, int start, int end) {
+        this.line = buffer;
+        this.position = start;
+        this.end = end;
+        return this;
+    }
+
+    /**
+     * @return true if there is at least one more field to read
+     */
+    public boolean hasNext() {
+        return position <= end;
+    }
+
+    private int fieldEnd() {
+        if (position > end) {
+            throw new IllegalStateException("No more fields on the line.");
+        }
+        int fieldEnd = position;
+        while (fieldEnd < end && line.charAt(fieldEnd) != DELIMITER) {
+            fieldEnd++;
+        }
+        return fieldEnd;
+    }
+
+    /**
+     * Skips the next field.
+     */
+    public void skip() {
+        position = fieldEnd() + 1;
+    }
+
+    /**
+     * @return the next field as a String
+     */
+    public String nextString() {
+        int fieldEnd = fieldEnd();
+        String field = line.subSequence(position, fieldEnd).toString();
+        position = fieldEnd + 1;
+        return field;
+    }
+
+    /**
+     * @return the next field as an int
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public int nextInt() {
+        int fieldEnd = fieldEnd();
+        int i = position;
+        boolean negative = false;
+        if (i < fieldEnd && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("Not a number: \"" + line.subSequence(position, fieldEnd) + "\"");
+        }
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Not an int: \"" + line.subSequence(position, fieldEnd) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Not an int: \"" + line.subSequence(position, fieldEnd) + "\"");
+        }
+        position = fieldEnd + 1;
+        return (int) value;
+    }
+
+    /**
+     * @return the next field as a BigDecimal, with the same value and scale
+     * as new BigDecimal(field)
+     * @throws NumberFormatException if the field is not a valid decimal
+     */
+    public BigDecimal nextDecimal() {
+        int fieldEnd = fieldEnd();
+        int i = position;
+        boolean negative = false;
+        if (i < fieldEnd && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; i < fieldEnd; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                // exponents and anything unusual go through the slow path
+                break;
+            }
+            if (digits > MAX_LONG_DIGITS) {
+                break;
+            }
+        }
+        BigDecimal value;
+        if (i < fieldEnd || digits == 0) {
+            // let BigDecimal parse (or reject) what we don't handle ourselves
+            value = new BigDecimal(line.subSequence(position, fieldEnd).toString());
+        } else {
+            value = BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+        }
+        position = fieldEnd + 1;
+        return value;
+    }
+}
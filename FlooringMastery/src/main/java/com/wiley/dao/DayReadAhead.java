@@ -0,0 +1,132 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The days of a date range, read a few days ahead of the consumer on an executor.
+ *
+ * The days are handed out in date order on the consuming thread, like exportAll()
+ * writes them: at most maxDaysInFlight days are submitted ahead of the one being
+ * consumed, so the memory used does not grow with the range.
+ */
+final class DayReadAhead implements Iterator<List<Order>> {
+
+    /**
+     * Reads the orders of one day, sorted by order number.
+     */
+    interface DayReader {
+        /**
+         * @param date the day to read
+         * @return its orders, sorted by order number
+         * @throws OrderDataPersistenceException if the day cannot be read
+         */
+        List<Order> read(LocalDate date) throws OrderDataPersistenceException;
+    }
+
+    static final int DEFAULT_MAX_DAYS_IN_FLIGHT = Runtime.getRuntime().availableProcessors();
+
+    private final Iterator<LocalDate> dates;
+    private final DayReader reader;
+    private final ExecutorService executor;
+    private final int maxDaysInFlight;
+    private final Deque<Future<List<Order>>> inFlight = new ArrayDeque<>();
+
+    private DayReadAhead(Iterator<LocalDate> dates, DayReader reader, ExecutorService executor, int maxDaysInFlight) {
+        this.dates = dates;
+        this.reader = reader;
+        this.executor = executor;
+        this.maxDaysInFlight = Math.max(1, maxDaysInFlight);
+    }
+
+    /**
+     * @param dates the days to read, in the order they are streamed
+     * @param reader reads one day
+     * @param executor executor to read the days ahead on, null to read each day on the consuming thread
+     * @param maxDaysInFlight how many days may be read ahead of the consumer
+     * @return a sequential stream of the orders of the days; closing it cancels the days read ahead
+     */
+    static Stream<Order> stream(Iterable<LocalDate> dates, DayReader reader,
+                                ExecutorService executor, int maxDaysInFlight) {
+        DayReadAhead days = new DayReadAhead(dates.iterator(), reader, executor, maxDaysInFlight);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(days, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(List::stream)
+                .onClose(days::cancel);
+    }
+
+    /**
+     * Same as {@link #stream(Iterable, DayReader, ExecutorService, int)} on the common ForkJoinPool,
+     * one day ahead per core.
+     */
+    static Stream<Order> stream(Iterable<LocalDate> dates, DayReader reader) {
+        return stream(dates, reader, ForkJoinPool.commonPool(), DEFAULT_MAX_DAYS_IN_FLIGHT);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !inFlight.isEmpty() || dates.hasNext();
+    }
+
+    @Override
+    public List<Order> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (executor == null) {
+            return readNow(dates.next());
+        }
+        submitAhead();
+        Future<List<Order>> day = inFlight.poll();
+        try {
+            return day.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedOrderDataPersistenceException(
+                    new OrderDataPersistenceException("Reading the orders was interrupted.", e));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OrderDataPersistenceException) {
+                throw new UncheckedOrderDataPersistenceException((OrderDataPersistenceException) e.getCause());
+            }
+            throw new UncheckedOrderDataPersistenceException(
+                    new OrderDataPersistenceException("Could not read the orders.", e.getCause()));
+        }
+    }
+
+    private void submitAhead() {
+        while (dates.hasNext() && inFlight.size() < maxDaysInFlight) {
+            LocalDate date = dates.next();
+            inFlight.add(executor.submit(() -> reader.read(date)));
+        }
+    }
+
+    private List<Order> readNow(LocalDate date) {
+        try {
+            return reader.read(date);
+        } catch (OrderDataPersistenceException e) {
+            throw new UncheckedOrderDataPersistenceException(e);
+        }
+    }
+
+    // the consumer stopped early, the days read ahead are not wanted any more;
+    // a day already being read is left to finish rather than interrupted halfway
+    private void cancel() {
+        for (Future<List<Order>> pending : inFlight) {
+            pending.cancel(false);
+        }
+        inFlight.clear();
+    }
+}
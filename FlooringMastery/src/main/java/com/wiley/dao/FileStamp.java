@@ -0,0 +1,54 @@
+package com.wiley.dao;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * Last modified time and size of a file, taken right before the file is read,
+ * so a later stamp of the same file tells whether it has to be read again.
+ */
+public final class FileStamp {
+    // file systems store modification times at different resolutions (down to 2s on FAT),
+    // so a change made within this window of our read may not show in the stamp
+    private static final long TIMESTAMP_RESOLUTION_MILLIS = 2000;
+
+    private final FileTime lastModified;
+    private final long size;
+    private final long takenAtMillis;
+
+    private FileStamp(FileTime lastModified, long size, long takenAtMillis) {
+        this.lastModified = lastModified;
+        this.size = size;
+        this.takenAtMillis = takenAtMillis;
+    }
+
+    /**
+     * @param path the file to stamp
+     * @return the current stamp of the file
+     * @throws IOException if the file does not exist or cannot be read
+     */
+    public static FileStamp of(Path path) throws IOException {
+        long now = System.currentTimeMillis();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new FileStamp(attributes.lastModifiedTime(), attributes.size(), now);
+    }
+
+    /**
+     * Tells whether the file may have changed since this stamp was taken.
+     * A file modified just before it was stamped is always reported as changed,
+     * because a second write in the same clock tick would leave the stamp as it is.
+     *
+     * @param current a newer stamp of the same file
+     * @return true if the file has to be read again
+     */
+    public boolean isChangedIn(FileStamp current) {
+        boolean tooRecent = lastModified.toMillis() + TIMESTAMP_RESOLUTION_MILLIS >= takenAtMillis;
+        return tooRecent
+                || size != current.size
+                || !Objects.equals(lastModified, current.lastModified);
+    }
+}
@@ -0,0 +1,169 @@
+package com.wiley.dao;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Puts files written next to their target into place in one folder so that a crash
+ * leaves either the old file or the new one, never a truncated or half written one:
+ * the temp file is forced to disk, renamed over the target with ATOMIC_MOVE and the
+ * folder is forced to disk so the rename itself survives a crash.
+ *
+ * Forcing the folder is what makes a commit durable, and one force covers every
+ * rename made before it started. So commits that come in while the folder is being
+ * forced don't force it again each: they wait, and the next thread to get there
+ * forces it once for all of them (the leader), while the others just wait for it
+ * to finish (the followers).
+ *
+ * With durable writes turned off, files are still renamed atomically but nothing is
+ * forced, so a power loss may lose recent writes (never leaving a half written file).
+ */
+public class GroupCommitter {
+    private final Path FOLDER_PATH;
+    private volatile boolean durable = true;
+    // changes made to the folder (renames, new files), in order
+    private long changes = 0;
+    // every change up to this one is covered by a finished folder force
+    private long synced = 0;
+    private long commits = 0;
+    // true while a leader is forcing the folder
+    private boolean syncing = false;
+    private long folderSyncs = 0;
+
+    public GroupCommitter(String FOLDER_PATH) {
+        this.FOLDER_PATH = Paths.get(FOLDER_PATH);
+    }
+
+    /**
+     * @param durable true (default) to force every commit to disk before it returns
+     */
+    public void setDurable(boolean durable) {
+        this.durable = durable;
+    }
+
+    public boolean isDurable() {
+        return durable;
+    }
+
+    /**
+     * @param target the file that is going to be replaced
+     * @return the temp file to write its new content to, in the same folder
+     */
+    public static Path tempFileFor(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Replaces the target with the temp file and, for durable writes, returns only once
+     * both the new content and the rename are on disk.
+     *
+     * @param tempFile the complete new content, written with {@link #tempFileFor(Path)}
+     * @param target the file to replace, in this committer's folder
+     * @throws IOException if the file cannot be forced or moved; the target is then unchanged
+     * or, if only the folder could not be forced, replaced but maybe not durably
+     */
+    public void commit(Path tempFile, Path target) throws IOException {
+        boolean forceToDisk = durable;
+        if (forceToDisk) {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        try {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        long change;
+        synchronized (this) {
+            commits++;
+            change = ++changes;
+        }
+        if (forceToDisk) {
+            awaitFolderSync(change);
+        }
+    }
+
+    /**
+     * Makes a file that was just created in the folder survive a crash, for durable writes.
+     * Shares the folder force with the commits going on at the same time.
+     *
+     * @throws IOException if the folder cannot be forced
+     */
+    public void syncFolder() throws IOException {
+        if (!durable) {
+            return;
+        }
+        long change;
+        synchronized (this) {
+            change = ++changes;
+        }
+        awaitFolderSync(change);
+    }
+
+    private void awaitFolderSync(long change) throws IOException {
+        long covered;
+        synchronized (this) {
+            // follow a leader until a force that started after our rename has finished,
+            // or lead the next force ourselves if nobody is forcing the folder
+            while (synced < change && syncing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the folder to be forced to disk.");
+                }
+            }
+            if (synced >= change) {
+                return;
+            }
+            syncing = true;
+            // every change counted so far happened before this force starts
+            covered = changes;
+        }
+        boolean forced = false;
+        try {
+            forceFolder();
+            forced = true;
+        } finally {
+            synchronized (this) {
+                syncing = false;
+                if (forced) {
+                    synced = Math.max(synced, covered);
+                    folderSyncs++;
+                }
+                // on failure a waiting follower becomes the next leader and tries again
+                notifyAll();
+            }
+        }
+    }
+
+    private void forceFolder() throws IOException {
+        FileChannel folder;
+        try {
+            folder = FileChannel.open(FOLDER_PATH, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // some platforms (Windows) can't open a folder, their file systems make the rename durable themselves
+            return;
+        }
+        try (FileChannel channel = folder) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * @return how many commits have been made
+     */
+    public synchronized long getCommitCount() {
+        return commits;
+    }
+
+    /**
+     * @return how many times the folder was forced to disk, at most one per durable commit or synced file
+     */
+    public synchronized long getFolderSyncCount() {
+        return folderSyncs;
+    }
+}
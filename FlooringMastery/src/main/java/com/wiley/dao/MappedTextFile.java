@@ -0,0 +1,115 @@
+package com.wiley.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a text file line by line through a memory mapping of the whole file,
+ * instead of decoding it through a Reader and buffering it again in a Scanner.
+ * Every byte is read as one character, which is exact for the ASCII content
+ * of our data files (customer names are validated to letters, digits,
+ * periods, commas and spaces).
+ */
+public class MappedTextFile {
+
+    /**
+     * Receives the lines of a mapped file. The buffer is only valid during the call.
+     */
+    public interface LineHandler {
+        /**
+         * @param buffer the whole file as characters
+         * @param start index of the first character of the line
+         * @param end index right after the last character of the line, line terminator excluded
+         */
+        void line(CharSequence buffer, int start, int end);
+    }
+
+    private MappedTextFile() {
+    }
+
+    /**
+     * Maps the file and hands every non blank line to the handler, in file order.
+     *
+     * @param path the file to read
+     * @param skipFirstLine true to skip a header line
+     * @param handler receives the lines
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static void forEachLine(Path path, boolean skipFirstLine, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too big to map: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            AsciiByteSequence buffer = new AsciiByteSequence(mapped, 0, (int) size);
+
+            int lineStart = 0;
+            boolean firstLine = true;
+            while (lineStart < buffer.length()) {
+                int lineEnd = lineStart;
+                while (lineEnd < buffer.length() && buffer.charAt(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int nextLineStart = lineEnd + 1;
+                // drop the \r of Windows line endings
+                if (lineEnd > lineStart && buffer.charAt(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (!(firstLine && skipFirstLine) && lineEnd > lineStart) {
+                    handler.line(buffer, lineStart, lineEnd);
+                }
+                firstLine = false;
+                lineStart = nextLineStart;
+            }
+        }
+    }
+
+    /**
+     * A view of bytes as characters, read with absolute gets so the buffer's
+     * position never changes.
+     */
+    private static class AsciiByteSequence implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset;
+        private final int length;
+
+        AsciiByteSequence(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiByteSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[length];
+            ByteBuffer view = bytes.duplicate();
+            view.position(offset);
+            view.get(copy);
+            return new String(copy, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
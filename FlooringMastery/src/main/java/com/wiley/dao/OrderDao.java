@@ -1,10 +1,12 @@
 package com.wiley.dao;
 
+import com.wiley.model.DailyRollup;
 import com.wiley.model.Order;
 
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderDao {
     /**
@@ -16,6 +18,27 @@ public interface OrderDao {
      * @throws OrderDataPersistenceException if there is an error during persistence
      */
     Order addOrder(Order order, LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Adds many new orders to the same date at once, writing the day only once.
+     * Orders with an order number already used that day replace the existing order.
+     *
+     * @param orders the order objects to add
+     * @param date the date associated with the orders
+     * @throws OrderDataPersistenceException if there is an error during persistence
+     */
+    void addOrders(List<Order> orders, LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Applies many adds, updates and removes to the orders of one date, in list order,
+     * loading the day once and writing it once.
+     * An update or remove of an order that does not exist changes nothing, nor does
+     * an update made with {@link OrderMutation#updateIfUnchanged} of an order that changed.
+     *
+     * @param date the date associated with the orders
+     * @param mutations the changes to apply
+     * @return for each mutation, in the same order, the order it replaced or removed, null if none
+     * @throws OrderDataPersistenceException if there is an error during persistence
+     */
+    List<Order> applyBatch(LocalDate date, List<OrderMutation> mutations) throws OrderDataPersistenceException;
     /**
      * Retrieves all orders for a given date.
      *
@@ -24,6 +47,28 @@ public interface OrderDao {
      * @throws OrderDataPersistenceException if there is an error during data retrieval
      */
     List<Order> getAllOrdersByDay(LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Lists every date that has orders stored.
+     *
+     * @return the dates, oldest first
+     * @throws OrderDataPersistenceException if the stored dates cannot be listed
+     */
+    List<LocalDate> getAllOrderDates() throws OrderDataPersistenceException;
+    /**
+     * Streams the orders of every date between from and to, both included, by date and
+     * then order number. Dates without orders are skipped. The stream is sequential and
+     * reads the days as it is consumed: a few days may be read ahead on other threads, but
+     * only a bounded number of days is held in memory however big the range is. Close the
+     * stream if it is not consumed to the end, so the days read ahead are dropped. A day
+     * changed while the stream runs may be seen before or after the change.
+     *
+     * @param from the first date
+     * @param to the last date
+     * @return the orders of the range, empty if from is after to
+     * @throws OrderDataPersistenceException if the stored dates cannot be listed
+     * @throws UncheckedOrderDataPersistenceException while consuming, if a day cannot be read
+     */
+    Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException;
     /**
      * Removes an order by its order number and date.
      *
@@ -52,15 +97,43 @@ public interface OrderDao {
      * @throws OrderDataPersistenceException if the order is not found
      */
     Order getByOrderAndDate(int orderNumber, LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Retrieves an order by its order number alone, whatever its date.
+     *
+     * @param orderNumber the number of the order to retrieve
+     * @return the order object if found, its date tells which day it belongs to
+     * @throws OrderDataPersistenceException if the order is not found
+     */
+    Order getByOrderNumber(int orderNumber) throws OrderDataPersistenceException;
+    /**
+     * Finds every order, on any date, whose field has the given value, ignoring case.
+     *
+     * @param field the field to search, e.g. the state
+     * @param value the value to look for, e.g. "CA"
+     * @return the matching orders, by date and then order number, empty if none
+     * @throws OrderDataPersistenceException if the orders cannot be read
+     */
+    List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException;
+    /**
+     * Retrieves the totals of one day's orders, overall, per state and per product type.
+     * The totals are kept up to date by every write to the day, so this does not read the orders.
+     *
+     * @param date the day to add up
+     * @return the day's totals, with no orders if there are none on that date
+     * @throws OrderDataPersistenceException if the day has to be added up again and cannot be read
+     */
+    DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException;
     /**
      * Exports all order data across all dates into a single file or external system.
      * Useful for backups or generating comprehensive reports.
      */
     void exportAll() throws OrderDataPersistenceException;
     /**
-     * Retrieves the maximum order number in the system.
+     * Retrieves the maximum order number in the system. A DAO that reserves order
+     * numbers in blocks may answer up to a block above the highest order saved,
+     * but never below it.
      *
-     * @return the highest order number
+     * @return the highest order number, or a number above it that is safe to continue from
      * @throws OrderDataPersistenceException if there is an error during data retrieval
      */
     int getMaxOrderNumber() throws OrderDataPersistenceException;
@@ -0,0 +1,498 @@
+package com.wiley.dao;
+
+import com.wiley.model.DailyRollup;
+import com.wiley.model.Order;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Stores each day as a binary Orders_MMddyyyy.bin file of fixed-width records instead of text,
+ * so reading a day decodes the records out of a memory mapping instead of
+ * parsing every field of every line. Use {@link OrderFileConverter} to move order
+ * history between this format and the Orders_MMddyyyy.txt files, which stay the
+ * format for backups and data exchange.
+ *
+ * File layout, big-endian:
+ * <pre>
+ * int   MAGIC
+ * short VERSION
+ * int   number of strings, then per string: unsigned short byte length, UTF-8 bytes
+ * int   number of records, then per record (RECORD_BYTES):
+ *       int orderNumber, int customerName id, int state id, int productType id,
+ *       8 amounts (taxRate, area, costPerSquareFoot, laborCostPerSquareFoot,
+ *       materialCost, laborCost, tax, total) as long unscaled value + byte scale
+ * </pre>
+ * The ids index the day's string table, so every state and product name is stored once
+ * per day. Amounts keep their exact scale, a day read back equals the day written.
+ */
+public class OrderDaoBinaryImpl implements OrderDao {
+    public static final String FILE_EXTENSION = ".bin";
+    public static final int MAGIC = 0x464C4F52;
+    public static final short VERSION = 1;
+    // a string's length is stored in an unsigned short
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+    private static final int AMOUNT_COUNT = 8;
+    private static final int AMOUNT_BYTES = Long.BYTES + 1;
+    public static final int RECORD_BYTES = 4 * Integer.BYTES + AMOUNT_COUNT * AMOUNT_BYTES;
+    private static final String DELIMITER = ",";
+    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+
+    private final String ORDER_FOLDER_PATH;
+    private final String EXPORT_FOLDER_PATH;
+    private final OrderDayCache cache;
+    // replaces day files atomically and forces them to disk, one folder force for concurrent writes
+    private final GroupCommitter committer;
+    private final OrderNumberSequence sequence;
+    // search index, order number index and per-day rollups, updated after every write to a day
+    private final OrderDayIndexes indexes;
+
+    public OrderDaoBinaryImpl(String ORDER_FOLDER_PATH, String EXPORT_FOLDER_PATH) {
+        this(ORDER_FOLDER_PATH, EXPORT_FOLDER_PATH,
+                OrderDaoFileImpl.DEFAULT_MAX_CACHED_DAYS, OrderDaoFileImpl.DEFAULT_CACHE_MEMORY_BUDGET);
+    }
+
+    public OrderDaoBinaryImpl(String ORDER_FOLDER_PATH, String EXPORT_FOLDER_PATH,
+                              int maxCachedDays, long cacheMemoryBudget) {
+        this.ORDER_FOLDER_PATH = ORDER_FOLDER_PATH;
+        this.EXPORT_FOLDER_PATH = EXPORT_FOLDER_PATH;
+        this.cache = new OrderDayCache(maxCachedDays, cacheMemoryBudget);
+        this.committer = new GroupCommitter(ORDER_FOLDER_PATH);
+        this.sequence = new OrderNumberSequence(ORDER_FOLDER_PATH, committer);
+        this.indexes = new OrderDayIndexes(ORDER_FOLDER_PATH, FILE_EXTENSION, new OrderDayIndexes.History() {
+            @Override
+            public Collection<LocalDate> dates() throws OrderDataPersistenceException {
+                return getAllOrderDates();
+            }
+
+            @Override
+            public Map<Integer, Order> scan(LocalDate date) throws OrderDataPersistenceException {
+                return loadForScan(date);
+            }
+
+            @Override
+            public boolean hasOrders(LocalDate date) {
+                return Files.exists(dayFile(date));
+            }
+
+            @Override
+            public OrderDayLocks.Held holdWriters() {
+                // the indexes are only used from synchronized methods, the writers are already out
+                return () -> { };
+            }
+        });
+    }
+
+    /**
+     * Switches between forcing every day file write to disk before it returns (default)
+     * and leaving that to the operating system; see {@link OrderDaoFileImpl#setDurableWrites(boolean)}.
+     *
+     * @param durableWrites true to force writes to disk
+     */
+    public void setDurableWrites(boolean durableWrites) {
+        committer.setDurable(durableWrites);
+    }
+
+    private Path dayFile(LocalDate date) {
+        return Paths.get(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + FILE_EXTENSION);
+    }
+
+    private HashMap<Integer, Order> load(LocalDate date) throws OrderDataPersistenceException {
+        HashMap<Integer, Order> cachedOrders = cache.get(date);
+        if (cachedOrders != null) {
+            return cachedOrders;
+        }
+        HashMap<Integer, Order> orderMap = loadFromFile(date);
+        cache.put(date, orderMap);
+        return orderMap;
+    }
+
+    private HashMap<Integer, Order> loadForScan(LocalDate date) throws OrderDataPersistenceException {
+        // whole-folder scans use cached days but don't push the whole history through the cache
+        HashMap<Integer, Order> cachedOrders = cache.get(date);
+        if (cachedOrders != null) {
+            return cachedOrders;
+        }
+        return loadFromFile(date);
+    }
+
+    private HashMap<Integer, Order> loadFromFile(LocalDate date) throws OrderDataPersistenceException {
+        Path file = dayFile(date);
+        HashMap<Integer, Order> orderMap = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new OrderDataPersistenceException("Not a binary order file: " + file);
+            }
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int recordCount = buffer.getInt();
+            for (int i = 0; i < recordCount; i++) {
+                Order order = decodeRecord(buffer, strings);
+                order.setDate(date);
+                orderMap.put(order.getOrderNumber(), order);
+            }
+        } catch (NoSuchFileException e) {
+            throw new OrderDataPersistenceException("-_- Could not retrieve order data.", e);
+        } catch (IOException | RuntimeException e) {
+            // a truncated file or an id outside the string table ends up here
+            throw new OrderDataPersistenceException("Could not read binary order file " + file, e);
+        }
+        return orderMap;
+    }
+
+    private Order decodeRecord(ByteBuffer buffer, String[] strings) {
+        Order order = new Order(buffer.getInt());
+        order.setCustomerName(strings[buffer.getInt()]);
+        order.setState(strings[buffer.getInt()]);
+        order.setProductType(strings[buffer.getInt()]);
+        order.setTaxRate(decodeAmount(buffer));
+        order.setArea(decodeAmount(buffer));
+        order.setCostPerSquareFoot(decodeAmount(buffer));
+        order.setLaborCostPerSquareFoot(decodeAmount(buffer));
+        order.setMaterialCost(decodeAmount(buffer));
+        order.setLaborCost(decodeAmount(buffer));
+        order.setTax(decodeAmount(buffer));
+        order.setTotal(decodeAmount(buffer));
+        return order;
+    }
+
+    private BigDecimal decodeAmount(ByteBuffer buffer) {
+        long unscaled = buffer.getLong();
+        return BigDecimal.valueOf(unscaled, buffer.get());
+    }
+
+    private void save(LocalDate date, HashMap<Integer, Order> orderMap) throws OrderDataPersistenceException {
+        Path file = dayFile(date);
+        // written next to the day file and moved over it, so a reader that has the
+        // old file mapped never sees it truncated or half written
+        Path tempFile = GroupCommitter.tempFileFor(file);
+        try {
+            writeDay(tempFile, orderMap.values());
+            committer.commit(tempFile, file);
+        } catch (IOException | RuntimeException e) {
+            // the cached map may already hold the change we could not write, so drop it
+            cache.invalidate(date);
+            throw new OrderDataPersistenceException("Could not save order data to file.", e);
+        }
+        cache.put(date, orderMap);
+    }
+
+    private void writeDay(Path file, Collection<Order> orders) throws IOException {
+        // build the string table first so the records can refer to it by index
+        Map<String, Integer> stringIds = new LinkedHashMap<>();
+        for (Order order : orders) {
+            stringIds.putIfAbsent(order.getCustomerName(), stringIds.size());
+            stringIds.putIfAbsent(order.getState(), stringIds.size());
+            stringIds.putIfAbsent(order.getProductType(), stringIds.size());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(stringIds.size());
+            for (String string : stringIds.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > MAX_STRING_BYTES) {
+                    // the length would wrap around and the file could not be read back
+                    throw new IOException("Text too long to store (" + bytes.length + " bytes): "
+                            + string.substring(0, 20) + "...");
+                }
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(orders.size());
+            for (Order order : orders) {
+                out.writeInt(order.getOrderNumber());
+                out.writeInt(stringIds.get(order.getCustomerName()));
+                out.writeInt(stringIds.get(order.getState()));
+                out.writeInt(stringIds.get(order.getProductType()));
+                writeAmount(out, order.getTaxRate());
+                writeAmount(out, order.getArea());
+                writeAmount(out, order.getCostPerSquareFoot());
+                writeAmount(out, order.getLaborCostPerSquareFoot());
+                writeAmount(out, order.getMaterialCost());
+                writeAmount(out, order.getLaborCost());
+                writeAmount(out, order.getTax());
+                writeAmount(out, order.getTotal());
+            }
+        }
+    }
+
+    private void writeAmount(DataOutputStream out, BigDecimal amount) throws IOException {
+        if (amount.scale() < 0 || amount.scale() > Byte.MAX_VALUE) {
+            throw new ArithmeticException("Amount cannot be stored: " + amount);
+        }
+        // throws ArithmeticException if the digits don't fit a long
+        out.writeLong(amount.unscaledValue().longValueExact());
+        out.writeByte(amount.scale());
+    }
+
+    @Override
+    public synchronized Order addOrder(Order order, LocalDate date) throws OrderDataPersistenceException {
+        return applyBatch(date, List.of(OrderMutation.add(order))).get(0);
+    }
+
+    @Override
+    public synchronized void addOrders(List<Order> orders, LocalDate date) throws OrderDataPersistenceException {
+        List<OrderMutation> mutations = new ArrayList<>();
+        for (Order order : orders) {
+            mutations.add(OrderMutation.add(order));
+        }
+        applyBatch(date, mutations);
+    }
+
+    @Override
+    public synchronized List<Order> applyBatch(LocalDate date, List<OrderMutation> mutations)
+            throws OrderDataPersistenceException {
+        List<Order> previousOrders = new ArrayList<>();
+        if (mutations.isEmpty()) {
+            return previousOrders;
+        }
+        //a day without a file yet starts empty
+        HashMap<Integer, Order> orderMap;
+        try {
+            orderMap = load(date);
+        } catch (OrderDataPersistenceException e) {
+            if (Files.exists(dayFile(date))) {
+                //the file is there but unreadable, don't overwrite it
+                throw e;
+            }
+            orderMap = new HashMap<>();
+        }
+        DailyRollup rollup = indexes.rollupOf(date, orderMap);
+
+        List<Integer> addedOrderNumbers = OrderDayIndexes.addedOrderNumbers(mutations);
+        if (!addedOrderNumbers.isEmpty()) {
+            if (!sequence.isKnown()) {
+                // rebuild a missing sequence before raising it, never from 0
+                getMaxOrderNumber();
+            }
+            sequence.raiseTo(Collections.max(addedOrderNumbers));
+            indexes.numbersAdded(addedOrderNumbers, date);
+        }
+
+        boolean changed = false;
+        for (OrderMutation mutation : mutations) {
+            Order previousOrder;
+            switch (mutation.getType()) {
+                case ADD:
+                    previousOrder = orderMap.put(mutation.getOrderNumber(), mutation.getOrder());
+                    changed = true;
+                    break;
+                case UPDATE:
+                    previousOrder = mutation.appliesTo(orderMap.get(mutation.getOrderNumber()))
+                            ? orderMap.replace(mutation.getOrderNumber(), mutation.getOrder())
+                            : null;
+                    changed |= previousOrder != null;
+                    break;
+                default:
+                    previousOrder = orderMap.remove(mutation.getOrderNumber());
+                    changed |= previousOrder != null;
+            }
+            previousOrders.add(previousOrder);
+        }
+        if (changed) {
+            save(date, orderMap);
+            indexes.replaceAll(date, rollup, mutations, previousOrders);
+            indexes.storeRollup(rollup, false);
+            indexes.numbersRemoved(OrderDayIndexes.removedOrderNumbers(mutations, orderMap));
+        }
+        return previousOrders;
+    }
+
+    @Override
+    public synchronized List<Order> getAllOrdersByDay(LocalDate date) throws OrderDataPersistenceException {
+        return new ArrayList<>(load(date).values());
+    }
+
+    @Override
+    public synchronized List<LocalDate> getAllOrderDates() throws OrderDataPersistenceException {
+        File orderFolder = new File(ORDER_FOLDER_PATH);
+        if (!orderFolder.isDirectory()) {
+            throw new OrderDataPersistenceException("Could not load order files.");
+        }
+        SortedSet<LocalDate> dates = new TreeSet<>();
+        // filename format: Orders_01012001.bin
+        File[] files = orderFolder.listFiles(
+                (dir, name) -> name.startsWith("Orders_") && name.endsWith(FILE_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                dates.add(LocalDate.parse(file.getName().substring(7, 15), FORMATTER));
+            }
+        }
+        return new ArrayList<>(dates);
+    }
+
+    @Override
+    public Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException {
+        if (from.isAfter(to)) {
+            return Stream.empty();
+        }
+        // only the dates that have a file, so missing days cost nothing
+        SortedSet<LocalDate> dates;
+        synchronized (this) {
+            dates = new TreeSet<>(getAllOrderDates()).subSet(from, to.plusDays(1));
+        }
+        return DayReadAhead.stream(dates, this::readDay);
+    }
+
+    private List<Order> readDay(LocalDate date) throws OrderDataPersistenceException {
+        List<Order> orders = null;
+        // a cached day may be changed by a writer, copy it under the lock;
+        // otherwise read the file outside the lock so days are read ahead in parallel
+        synchronized (this) {
+            HashMap<Integer, Order> cachedOrders = cache.get(date);
+            if (cachedOrders != null) {
+                orders = new ArrayList<>(cachedOrders.values());
+            }
+        }
+        if (orders == null) {
+            orders = new ArrayList<>(loadFromFile(date).values());
+        }
+        orders.sort(Comparator.comparingInt(Order::getOrderNumber));
+        return orders;
+    }
+
+    @Override
+    public synchronized Order removeOrder(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
+        HashMap<Integer, Order> orderMap = load(date);
+        DailyRollup rollup = indexes.rollupOf(date, orderMap);
+        Order removedOrder = orderMap.remove(orderNumber);
+        if (removedOrder != null) {
+            save(date, orderMap);
+            indexes.replace(date, removedOrder, null);
+            rollup.subtract(removedOrder);
+            indexes.storeRollup(rollup, false);
+            indexes.numbersRemoved(List.of(orderNumber));
+        }
+        return removedOrder;
+    }
+
+    @Override
+    public synchronized Order updateOrder(int orderNumber, LocalDate date, Order newOrder) throws OrderDataPersistenceException {
+        HashMap<Integer, Order> orderMap = load(date);
+        DailyRollup rollup = indexes.rollupOf(date, orderMap);
+        Order previousOrder = orderMap.replace(orderNumber, newOrder);
+        if (previousOrder != null) {
+            save(date, orderMap);
+            indexes.replace(date, previousOrder, newOrder);
+            rollup.replace(previousOrder, newOrder);
+            indexes.storeRollup(rollup, false);
+        }
+        return previousOrder;
+    }
+
+    @Override
+    public synchronized Order getByOrderNumber(int orderNumber) throws OrderDataPersistenceException {
+        LocalDate date = indexes.dateOf(orderNumber);
+        // the day the index points at may not have the order after a crash
+        Order order = null;
+        if (date != null && Files.exists(dayFile(date))) {
+            order = load(date).get(orderNumber);
+        }
+        if (order != null) {
+            return order;
+        } else {
+            throw new OrderDataPersistenceException("No such order found.");
+        }
+    }
+
+    @Override
+    public synchronized List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException {
+        List<Order> orders = new ArrayList<>();
+        // only the days and orders the index points at are read
+        for (Map.Entry<LocalDate, SortedSet<Integer>> day : indexes.find(field, value).entrySet()) {
+            HashMap<Integer, Order> orderMap = loadForScan(day.getKey());
+            for (int orderNumber : day.getValue()) {
+                Order order = orderMap.get(orderNumber);
+                if (order != null) {
+                    orders.add(order);
+                }
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public synchronized DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException {
+        return indexes.dailyRollup(date);
+    }
+
+    @Override
+    public synchronized Order getByOrderAndDate(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
+        Order order = load(date).get(orderNumber);
+        if (order != null) {
+            return order;
+        } else {
+            throw new OrderDataPersistenceException("No such order found.");
+        }
+    }
+
+    @Override
+    public synchronized void exportAll() throws OrderDataPersistenceException {
+        File exportFolder = new File(EXPORT_FOLDER_PATH);
+        if (!exportFolder.exists()) {
+            exportFolder.mkdirs();
+        }
+        //same backup file as the text format, so backups look the same whatever the storage
+        Path exportFile = Paths.get(EXPORT_FOLDER_PATH, "Backup_" + LocalDate.now().format(FORMATTER) + ".txt");
+        try (BufferedWriter out = Files.newBufferedWriter(exportFile)) {
+            out.write("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total,Date");
+            out.newLine();
+            for (LocalDate date : getAllOrderDates()) {
+                for (Order order : new TreeMap<>(loadForScan(date)).values()) {
+                    out.write(marshallOrder(order, date));
+                    out.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not save order data to file.", e);
+        }
+    }
+
+    private String marshallOrder(Order anOrder, LocalDate date) {
+        return anOrder.getOrderNumber() + DELIMITER
+                + anOrder.getCustomerName() + DELIMITER
+                + anOrder.getState() + DELIMITER
+                + anOrder.getTaxRate() + DELIMITER
+                + anOrder.getProductType() + DELIMITER
+                + anOrder.getArea() + DELIMITER
+                + anOrder.getCostPerSquareFoot() + DELIMITER
+                + anOrder.getLaborCostPerSquareFoot() + DELIMITER
+                + anOrder.getMaterialCost() + DELIMITER
+                + anOrder.getLaborCost() + DELIMITER
+                + anOrder.getTax() + DELIMITER
+                + anOrder.getTotal() + DELIMITER
+                + date;
+    }
+
+    @Override
+    public synchronized int getMaxOrderNumber() throws OrderDataPersistenceException {
+        Integer highWaterMark = sequence.read();
+        if (highWaterMark != null) {
+            return highWaterMark;
+        }
+        // sequence file missing or corrupt: recover it with a full scan
+        int maxOrderNumber = 0;
+        for (LocalDate date : getAllOrderDates()) {
+            for (int orderNumber : loadForScan(date).keySet()) {
+                maxOrderNumber = Math.max(maxOrderNumber, orderNumber);
+            }
+        }
+        sequence.write(maxOrderNumber);
+        return maxOrderNumber;
+    }
+}
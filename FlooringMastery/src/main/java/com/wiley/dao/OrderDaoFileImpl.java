@@ -1,45 +1,369 @@
 package com.wiley.dao;
 
+import com.wiley.model.DailyRollup;
 import com.wiley.model.Order;
 
 import java.io.*;
-import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// try (OrderDayLocks.Held held = ...) only holds a day lock for the block, held is never read in it
+@SuppressWarnings("try")
 public class OrderDaoFileImpl implements OrderDao{
     private final String ORDER_FOLDER_PATH;
     private final String EXPORT_FOLDER_PATH;
     public static final String DELIMITER = ",";
     private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+    public static final int DEFAULT_MAX_CACHED_DAYS = 32;
+    public static final long DEFAULT_CACHE_MEMORY_BUDGET = 64L * 1024 * 1024;
+    public static final long DEFAULT_WRITE_BEHIND_INTERVAL_MILLIS = 1000;
+    public static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 1000;
+    // keeps the order maps of recently used days so reads don't go back to the file
+    private final OrderDayCache cache;
+    // per-day log of mutations, only written to when journaling is on
+    private final OrderJournal journal;
+    private volatile boolean journaled = false;
+    // replaces day files atomically and forces them to disk, one folder force for concurrent writes
+    private final GroupCommitter committer;
+    // persisted highest order number, so startup doesn't have to read every order file
+    private final OrderNumberSequence sequence;
+    // search index, order number index and per-day rollups, updated after every write to a day
+    private final OrderDayIndexes indexes;
+    // the single write-behind thread that folds journals into day files, null when not started
+    private volatile ScheduledExecutorService compactor;
+    // journaled mutations not in their day file yet, per day; changed under the day's write lock
+    private final Map<LocalDate, Integer> pendingMutations = new ConcurrentHashMap<>();
+    private final AtomicLong queueDepth = new AtomicLong();
+    // waiting mutations that wake the writer before its interval, 0 for the interval only
+    private volatile int writeBehindBatchSize = 0;
+    private final AtomicBoolean writeRequested = new AtomicBoolean();
+    private final WriteBehindMetrics.Recorder writeBehindRecorder = new WriteBehindMetrics.Recorder();
+    // when set, exportAll() reads and converts day files on this executor
+    private ExecutorService exportExecutor;
+    // read day files through a memory mapping instead of a Scanner
+    private volatile boolean memoryMappedReads = false;
+    private int maxExportDaysInFlight;
+    // getOrdersInRange() reads this many days ahead of its consumer on rangeExecutor
+    private ExecutorService rangeExecutor = ForkJoinPool.commonPool();
+    private int maxRangeDaysInFlight = DayReadAhead.DEFAULT_MAX_DAYS_IN_FLIGHT;
+    // per-day read-write locks: a day is read and written under its own lock, not the whole DAO's
+    private final OrderDayLocks locks = new OrderDayLocks();
 
     public OrderDaoFileImpl() {
-        this.ORDER_FOLDER_PATH = "src/main/SampleFileData/Orders";
-        this.EXPORT_FOLDER_PATH = "src/main/SampleFileData/Backup";
+        this("src/main/SampleFileData/Orders", "src/main/SampleFileData/Backup");
     }
 
     public OrderDaoFileImpl(String ORDER_FOLDER_PATH, String EXPORT_FOLDER_PATH) {
+        this(ORDER_FOLDER_PATH, EXPORT_FOLDER_PATH, DEFAULT_MAX_CACHED_DAYS, DEFAULT_CACHE_MEMORY_BUDGET);
+    }
+
+    public OrderDaoFileImpl(String ORDER_FOLDER_PATH, String EXPORT_FOLDER_PATH,
+                            int maxCachedDays, long cacheMemoryBudget) {
         this.ORDER_FOLDER_PATH = ORDER_FOLDER_PATH;
         this.EXPORT_FOLDER_PATH = EXPORT_FOLDER_PATH;
+        this.cache = new OrderDayCache(maxCachedDays, cacheMemoryBudget);
+        this.committer = new GroupCommitter(ORDER_FOLDER_PATH);
+        this.journal = new OrderJournal(ORDER_FOLDER_PATH, committer);
+        this.sequence = new OrderNumberSequence(ORDER_FOLDER_PATH, committer);
+        this.indexes = new OrderDayIndexes(ORDER_FOLDER_PATH, ".txt", new OrderDayIndexes.History() {
+            @Override
+            public Collection<LocalDate> dates() throws OrderDataPersistenceException {
+                return listOrderDates();
+            }
+
+            @Override
+            public Map<Integer, Order> scan(LocalDate date) throws OrderDataPersistenceException {
+                return loadForScan(date);
+            }
+
+            @Override
+            public boolean hasOrders(LocalDate date) {
+                return new File(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + ".txt").exists()
+                        || journal.exists(date);
+            }
+
+            @Override
+            public OrderDayLocks.Held holdWriters() {
+                return locks.lockHistory();
+            }
+        });
+    }
+
+    /**
+     * Switches between rewriting the whole day file on every mutation (default)
+     * and appending the mutation to the day's journal. Journals still get read
+     * back when the mode is off, so pending mutations are never lost.
+     *
+     * @param journaled true to append mutations to the journal
+     */
+    public void setJournaled(boolean journaled) {
+        this.journaled = journaled;
+    }
+
+    /**
+     * Turns journaling on and starts a background thread that folds the
+     * journals back into the day files at a fixed interval.
+     *
+     * @param interval time between two compactions
+     * @param unit unit of the interval
+     */
+    public void startCompactor(long interval, TimeUnit unit) {
+        startWriteBehind(interval, unit, 0);
+    }
+
+    /**
+     * Starts the write-behind with the default interval and batch size.
+     */
+    public void startWriteBehind() {
+        startWriteBehind(DEFAULT_WRITE_BEHIND_INTERVAL_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WRITE_BEHIND_BATCH_SIZE);
+    }
+
+    /**
+     * Turns journaling on and starts the write-behind: a mutation returns as soon as it
+     * is applied to the cached day and appended to the day's journal, and a single
+     * background writer folds everything that piled up for a day into one rewrite of
+     * the day file. The writer runs at a fixed interval, and early once batchSize
+     * mutations are waiting. Journals left by an earlier run are written before it returns.
+     * A day that cannot be written keeps its journal and shows up in
+     * {@link #getWriteBehindMetrics()} as a failed commit, like a failure of the writer.
+     *
+     * @param interval time between two runs of the writer
+     * @param unit unit of the interval
+     * @param batchSize waiting mutations that start the writer early, 0 to only run it at the interval
+     */
+    public synchronized void startWriteBehind(long interval, TimeUnit unit, int batchSize) {
+        setJournaled(true);
+        writeBehindBatchSize = batchSize;
+        if (compactor != null) {
+            return;
+        }
+        try {
+            for (LocalDate date : listOrderDates()) {
+                // a day that fails keeps its journal, the other days are still written
+                try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+                    compactDay(date);
+                } catch (OrderDataPersistenceException e) {
+                    writeBehindRecorder.recordFailure(e);
+                }
+            }
+        } catch (OrderDataPersistenceException e) {
+            // the order folder cannot be listed, shutdown() tries again
+            writeBehindRecorder.recordFailure(e);
+        }
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::writePendingDays, interval, interval, unit);
+        compactor = writer;
+    }
+
+    /**
+     * @return queue depth and latencies of the write-behind so far
+     */
+    public WriteBehindMetrics getWriteBehindMetrics() {
+        return writeBehindRecorder.snapshot(queueDepth.get(), pendingMutations.size());
+    }
+
+    /**
+     * Stops the background writer and compacts whatever is left in the journals.
+     *
+     * @throws OrderDataPersistenceException if a journal could not be compacted
+     */
+    public void shutdown() throws OrderDataPersistenceException {
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdown();
+                compactor = null;
+            }
+        }
+        compactJournals();
+    }
+
+    /**
+     * Switches between forcing every day file write and journal append to disk before
+     * it returns (default) and leaving that to the operating system. Day files are
+     * replaced atomically either way, so a crash never leaves a half written day, but
+     * without durable writes a power loss may lose the most recent ones.
+     *
+     * @param durableWrites true to force writes to disk
+     */
+    public void setDurableWrites(boolean durableWrites) {
+        committer.setDurable(durableWrites);
+    }
+
+    /**
+     * Switches day file reads (loading a day, export and the order number scan)
+     * between a Scanner over a FileReader (default) and a memory mapping of the file.
+     *
+     * @param memoryMappedReads true to read day files through a memory mapping
+     */
+    public void setMemoryMappedReads(boolean memoryMappedReads) {
+        this.memoryMappedReads = memoryMappedReads;
+    }
+
+    /**
+     * Makes exportAll() parse day files in parallel on the given executor,
+     * for example a ForkJoinPool sized to the number of cores.
+     * The backup file is still written in date and then order number order.
+     *
+     * @param exportExecutor executor to read the day files on, null to export on the calling thread
+     * @param maxExportDaysInFlight how many days may be read ahead of the writer, bounds the memory used
+     */
+    public synchronized void setExportExecutor(ExecutorService exportExecutor, int maxExportDaysInFlight) {
+        this.exportExecutor = exportExecutor;
+        this.maxExportDaysInFlight = Math.max(1, maxExportDaysInFlight);
+    }
+
+    /**
+     * Sets where getOrdersInRange() reads the days ahead of the consumer of its stream,
+     * the common ForkJoinPool and one day per core by default.
+     *
+     * @param rangeExecutor executor to read the days on, null to read them on the consuming thread
+     * @param maxRangeDaysInFlight how many days may be read ahead of the consumer, bounds the memory used
+     */
+    public synchronized void setRangeExecutor(ExecutorService rangeExecutor, int maxRangeDaysInFlight) {
+        this.rangeExecutor = rangeExecutor;
+        this.maxRangeDaysInFlight = Math.max(1, maxRangeDaysInFlight);
+    }
+
+    /**
+     * Rewrites every day that has a journal into its Orders_*.txt snapshot
+     * and deletes the journal.
+     *
+     * @throws OrderDataPersistenceException if a day could not be compacted
+     */
+    public void compactJournals() throws OrderDataPersistenceException {
+        for (LocalDate date : listOrderDates()) {
+            // one day at a time, the other days stay available while a day is compacted
+            try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+                compactDay(date);
+            }
+        }
+    }
+
+    // the write-behind writer: one day file rewrite for all the mutations a day got since the last run
+    private void writePendingDays() {
+        writeRequested.set(false);
+        for (LocalDate date : new TreeSet<>(pendingMutations.keySet())) {
+            try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+                Integer waiting = pendingMutations.get(date);
+                if (waiting == null) {
+                    // written by a compaction meanwhile
+                    continue;
+                }
+                long start = System.nanoTime();
+                compactDay(date);
+                writeBehindRecorder.recordCommit(waiting, System.nanoTime() - start);
+            } catch (OrderDataPersistenceException e) {
+                // the mutations stay in the journal and we try again next time
+                writeBehindRecorder.recordFailure(e);
+            }
+        }
+    }
+
+    // wakes the writer up before its interval, at most once until it has run
+    private void requestWrite() {
+        ScheduledExecutorService writer = compactor;
+        if (writer != null && writeRequested.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::writePendingDays);
+            } catch (RejectedExecutionException e) {
+                // shutting down, shutdown() compacts what is left
+            }
+        }
+    }
+
+    // called with the day's write lock held
+    private void compactDay(LocalDate date) throws OrderDataPersistenceException {
+        if (journal.exists(date)) {
+            HashMap<Integer, Order> orderMap = load(date);
+            DailyRollup rollup = indexes.rollupOf(date, orderMap);
+            // save() deletes the journal once the snapshot is written
+            save(date, orderMap);
+            // same orders in different files, the rollup only needs the new stamp
+            indexes.storeRollup(rollup, false);
+        }
     }
 
     private HashMap<Integer, Order> load(LocalDate date) throws OrderDataPersistenceException {
+        // serve the day from memory if we already read it
+        HashMap<Integer, Order> cachedOrders = cache.get(date);
+        if (cachedOrders != null) {
+            return cachedOrders;
+        }
+        HashMap<Integer, Order> orderMap = loadFromFile(date);
+        cache.put(date, orderMap);
+        return orderMap;
+    }
+
+    // for writes: a day with neither a file nor a journal yet starts empty, but a day that
+    // exists and can't be read (a corrupt journal, an unreadable file) fails, saving
+    // it with only the new orders would throw away everything it already had
+    private HashMap<Integer, Order> loadOrEmpty(LocalDate date) throws OrderDataPersistenceException {
+        try {
+            return load(date);
+        } catch (OrderDataPersistenceException e) {
+            if (Files.exists(Paths.get(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + ".txt"))
+                    || journal.exists(date)) {
+                throw e;
+            }
+            return new HashMap<>();
+        }
+    }
+
+    private HashMap<Integer, Order> loadForScan(LocalDate date) throws OrderDataPersistenceException {
+        // whole-folder scans use cached days when they can, but don't push
+        // every day of the history through the cache and evict the busy ones
+        HashMap<Integer, Order> cachedOrders = cache.get(date);
+        if (cachedOrders != null) {
+            return cachedOrders;
+        }
+        return loadFromFile(date);
+    }
+
+    private HashMap<Integer, Order> loadFromFile(LocalDate date) throws OrderDataPersistenceException {
         // build the file name to load
         String orderFilePath = "Orders_" + date.format(FORMATTER) + ".txt";
         orderFilePath = ORDER_FOLDER_PATH + "/" + orderFilePath;
         HashMap<Integer, Order> orderMap = new HashMap<>();
         Scanner scanner;
 
+        if (memoryMappedReads && new File(orderFilePath).exists()) {
+            loadMapped(Paths.get(orderFilePath), date, orderMap);
+            // apply the mutations that were journaled since the snapshot was written
+            journal.replay(date, orderMap, this::unmarshallOrder);
+            return orderMap;
+        }
+
         try {
             // Create scanner for reading file
             scanner = new Scanner(
                     new BufferedReader(
                             new FileReader(orderFilePath)));
         } catch (FileNotFoundException e) {
+            // a day created while journaling has no snapshot yet, only a journal
+            if (journal.exists(date)) {
+                journal.replay(date, orderMap, this::unmarshallOrder);
+                return orderMap;
+            }
             throw new OrderDataPersistenceException("-_- Could not retrieve order data.", e);
         }
         String currentLine;
@@ -55,6 +379,10 @@ public class OrderDaoFileImpl implements OrderDao{
         // Process while we have more lines in the file
         while (scanner.hasNextLine()){
             currentLine = scanner.nextLine();
+            // tolerate blank lines, e.g. a trailing empty line left by hand editing
+            if (currentLine.isEmpty()) {
+                continue;
+            }
             currentOrder = unmarshallOrder(currentLine);
             currentOrder.setDate(date);
 
@@ -65,10 +393,33 @@ public class OrderDaoFileImpl implements OrderDao{
 
         scanner.close();
 
+        // apply the mutations that were journaled since the snapshot was written
+        journal.replay(date, orderMap, this::unmarshallOrder);
+
         return orderMap;
     }
 
+    private void loadMapped(Path orderFile, LocalDate date, HashMap<Integer, Order> orderMap)
+            throws OrderDataPersistenceException {
+        // one parser for the whole file, reading each record straight out of the mapping
+        CsvLineParser fields = new CsvLineParser();
+        try {
+            MappedTextFile.forEachLine(orderFile, true, (buffer, start, end) -> {
+                Order currentOrder = unmarshallOrder(fields.reset(buffer, start, end));
+                currentOrder.setDate(date);
+                orderMap.put(currentOrder.getOrderNumber(), currentOrder);
+            });
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("-_- Could not retrieve order data.", e);
+        }
+    }
+
     private Order unmarshallOrder(String orderAsText){
+        // read the fields in place instead of split(), which builds an array and 12 substrings
+        return unmarshallOrder(new CsvLineParser(orderAsText));
+    }
+
+    private Order unmarshallOrder(CsvLineParser fields){
         //file format:
         //OrderNumber,
         // CustomerName,
@@ -83,21 +434,19 @@ public class OrderDaoFileImpl implements OrderDao{
         // Tax,
         // Total
         //date
-        String[] orderTokens = orderAsText.split(DELIMITER);
-
-        int orderNumber = Integer.parseInt(orderTokens[0]);
+        int orderNumber = fields.nextInt();
         Order orderFromFile = new Order(orderNumber);
-        orderFromFile.setCustomerName(orderTokens[1]);
-        orderFromFile.setState(orderTokens[2]);
-        orderFromFile.setTaxRate(new BigDecimal(orderTokens[3]));
-        orderFromFile.setProductType(orderTokens[4]);
-        orderFromFile.setArea(new BigDecimal(orderTokens[5]));
-        orderFromFile.setCostPerSquareFoot(new BigDecimal(orderTokens[6]));
-        orderFromFile.setLaborCostPerSquareFoot(new BigDecimal(orderTokens[7]));
-        orderFromFile.setMaterialCost(new BigDecimal(orderTokens[8]));
-        orderFromFile.setLaborCost(new BigDecimal(orderTokens[9]));
-        orderFromFile.setTax(new BigDecimal(orderTokens[10]));
-        orderFromFile.setTotal(new BigDecimal(orderTokens[11]));
+        orderFromFile.setCustomerName(fields.nextString());
+        orderFromFile.setState(fields.nextString());
+        orderFromFile.setTaxRate(fields.nextDecimal());
+        orderFromFile.setProductType(fields.nextString());
+        orderFromFile.setArea(fields.nextDecimal());
+        orderFromFile.setCostPerSquareFoot(fields.nextDecimal());
+        orderFromFile.setLaborCostPerSquareFoot(fields.nextDecimal());
+        orderFromFile.setMaterialCost(fields.nextDecimal());
+        orderFromFile.setLaborCost(fields.nextDecimal());
+        orderFromFile.setTax(fields.nextDecimal());
+        orderFromFile.setTotal(fields.nextDecimal());
 
         return orderFromFile;
     }
@@ -140,83 +489,290 @@ public class OrderDaoFileImpl implements OrderDao{
     }
 
     private void save(LocalDate date, HashMap<Integer, Order> orderMap) throws OrderDataPersistenceException {
-        String orderFilePath = "Orders_" + date.format(FORMATTER) + ".txt";
-        orderFilePath =  ORDER_FOLDER_PATH + "/" + orderFilePath;
-
-        PrintWriter out;
-
+        Path orderFile = Paths.get(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + ".txt");
+        // write the whole day next to the day file and swap it in, so a crash
+        // leaves the old day or the new one, never a truncated file
+        Path tempFile = GroupCommitter.tempFileFor(orderFile);
         try {
-            out = new PrintWriter(new FileWriter(orderFilePath, false));
-        } catch (IOException e){
+            try (BufferedWriter out = Files.newBufferedWriter(tempFile)) {
+                // add header to file
+                out.write("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
+                out.newLine();
+                for (Order currentOrder : orderMap.values()) {
+                    // turn a order into a String and write it to the file
+                    out.write(marshallOrder(currentOrder, false));
+                    out.newLine();
+                }
+            }
+            committer.commit(tempFile, orderFile);
+        } catch (IOException e) {
+            // the cached map may already hold the change we could not write, so drop it
+            cache.invalidate(date);
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // a leftover temp file is overwritten by the next save of the day
+            }
             throw new OrderDataPersistenceException("Could not save order data to file.", e);
+        }
 
+        // the snapshot now holds everything the journal had
+        journal.delete(date);
+        Integer written = pendingMutations.remove(date);
+        if (written != null) {
+            queueDepth.addAndGet(-written);
         }
-        String orderAsText;
 
-        // add header to file
-        out.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
-        for (Order currentOrder: orderMap.values()) {
-            // turn a order into a String
-            orderAsText = this.marshallOrder(currentOrder, false);
-            // write the order object to the file
-            out.println(orderAsText);
-            // force to write line to file
-            out.flush();
+        // write-through: the file and the cache now hold the same orders
+        cache.put(date, orderMap);
+    }
+
+    private void appendToJournal(LocalDate date, HashMap<Integer, Order> orderMap, String record)
+            throws OrderDataPersistenceException {
+        appendToJournal(date, orderMap, Collections.singletonList(record));
+    }
+
+    private void appendToJournal(LocalDate date, HashMap<Integer, Order> orderMap, List<String> records)
+            throws OrderDataPersistenceException {
+        long start = System.nanoTime();
+        try {
+            journal.append(date, records);
+        } catch (OrderDataPersistenceException e) {
+            // the cached map already holds the change we could not write, so drop it
+            cache.invalidate(date);
+            throw e;
+        }
+        cache.put(date, orderMap);
+        writeBehindRecorder.recordAcknowledge(records.size(), System.nanoTime() - start);
+
+        // queue the day for the writer
+        pendingMutations.merge(date, records.size(), Integer::sum);
+        long waiting = queueDepth.addAndGet(records.size());
+        int batchSize = writeBehindBatchSize;
+        if (batchSize > 0 && waiting >= batchSize) {
+            requestWrite();
         }
-        //clean up
-        out.close();
+    }
+
+    // lists the days that have a snapshot, a journal or both, oldest first
+    private SortedSet<LocalDate> listOrderDates() throws OrderDataPersistenceException {
+        File orderFolder = new File(ORDER_FOLDER_PATH);
+        if (!orderFolder.exists() || !orderFolder.isDirectory()) {
+            throw new OrderDataPersistenceException("Could not load order files.");
+        }
+        SortedSet<LocalDate> dates = new TreeSet<>();
+        // filename format: Orders_01012001.txt or Orders_01012001.journal
+        File[] files = orderFolder.listFiles(
+                (dir, name) -> name.startsWith("Orders_")
+                        && (name.endsWith(".txt") || name.endsWith(OrderJournal.FILE_EXTENSION))
+        );
+        if (files != null) {
+            for (File file : files) {
+                String dateString = file.getName().substring(7, 15);
+                dates.add(LocalDate.parse(dateString, FORMATTER));
+            }
+        }
+        return dates;
     }
 
     @Override
     public Order addOrder(Order order, LocalDate date) throws OrderDataPersistenceException {
-        //first load the file and grab the orders (throws exception if file not found)
-        //in this case we want to create a new file, so we catch the exception
-        HashMap<Integer,Order> orderMap;
-        try {
-            orderMap = load(date);
-        } catch (OrderDataPersistenceException e) {
-            //if the file doesn't exist, initialize an empty map
-            orderMap = new HashMap<>();
+        recoverSequence();
+        try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+            //first load the file and grab the orders, a day without a file starts empty
+            HashMap<Integer,Order> orderMap = loadOrEmpty(date);
+            DailyRollup rollup = indexes.rollupOf(date, orderMap);
+
+            // raise the sequence first: if we crash in between, the worst case is a
+            // skipped order number, never one that gets handed out twice
+            sequence.raiseTo(order.getOrderNumber());
+            indexes.numbersAdded(List.of(order.getOrderNumber()), date);
+            Order prevOrder = orderMap.put(order.getOrderNumber(), order);
+
+            //now write the updated order list to the file, or only the new order to the journal
+            if (journaled) {
+                appendToJournal(date, orderMap, OrderJournal.record(OrderJournal.ADD, marshallOrder(order, false)));
+            } else {
+                save(date, orderMap);
+            }
+            indexes.replace(date, prevOrder, order);
+            rollup.replace(prevOrder, order);
+            storeRollup(rollup);
+
+            //if there was no value for that key before, return null
+            //else return the previous value
+            return prevOrder;
         }
+    }
 
-        Order prevOrder = orderMap.put(order.getOrderNumber(), order);
+    @Override
+    public void addOrders(List<Order> orders, LocalDate date) throws OrderDataPersistenceException {
+        List<OrderMutation> mutations = new ArrayList<>();
+        for (Order order : orders) {
+            mutations.add(OrderMutation.add(order));
+        }
+        applyBatch(date, mutations);
+    }
+
+    @Override
+    public List<Order> applyBatch(LocalDate date, List<OrderMutation> mutations)
+            throws OrderDataPersistenceException {
+        recoverSequence();
+        try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+            List<Order> previousOrders = new ArrayList<>();
+            if (mutations.isEmpty()) {
+                return previousOrders;
+            }
+            //same as addOrder: a day without a file yet starts empty
+            HashMap<Integer,Order> orderMap = loadOrEmpty(date);
+            DailyRollup rollup = indexes.rollupOf(date, orderMap);
+
+            // raise the sequence once, before anything is written, for the highest added number
+            List<Integer> addedOrderNumbers = OrderDayIndexes.addedOrderNumbers(mutations);
+            if (!addedOrderNumbers.isEmpty()) {
+                sequence.raiseTo(Collections.max(addedOrderNumbers));
+                indexes.numbersAdded(addedOrderNumbers, date);
+            }
 
-        //now write the updated order list to the file
-        save(date, orderMap);
+            //apply everything in memory, keeping a journal record for every actual change
+            List<String> records = new ArrayList<>();
+            for (OrderMutation mutation : mutations) {
+                Order previousOrder;
+                switch (mutation.getType()) {
+                    case ADD:
+                        previousOrder = orderMap.put(mutation.getOrderNumber(), mutation.getOrder());
+                        records.add(OrderJournal.record(OrderJournal.ADD, marshallOrder(mutation.getOrder(), false)));
+                        break;
+                    case UPDATE:
+                        previousOrder = mutation.appliesTo(orderMap.get(mutation.getOrderNumber()))
+                                ? orderMap.replace(mutation.getOrderNumber(), mutation.getOrder())
+                                : null;
+                        if (previousOrder != null) {
+                            records.add(OrderJournal.record(OrderJournal.UPDATE, marshallOrder(mutation.getOrder(), false)));
+                        }
+                        break;
+                    default:
+                        previousOrder = orderMap.remove(mutation.getOrderNumber());
+                        if (previousOrder != null) {
+                            records.add(OrderJournal.record(OrderJournal.REMOVE, String.valueOf(mutation.getOrderNumber())));
+                        }
+                }
+                previousOrders.add(previousOrder);
+            }
 
-        //if there was no value for that key before, return null
-        //else return the previous value
-        return prevOrder;
+            //one write for the whole batch, nothing to write if no mutation changed anything
+            if (records.isEmpty()) {
+                return previousOrders;
+            }
+            if (journaled) {
+                appendToJournal(date, orderMap, records);
+            } else {
+                save(date, orderMap);
+            }
+            indexes.replaceAll(date, rollup, mutations, previousOrders);
+            storeRollup(rollup);
+            indexes.numbersRemoved(OrderDayIndexes.removedOrderNumbers(mutations, orderMap));
+            return previousOrders;
+        }
     }
 
     @Override
     public List<Order> getAllOrdersByDay(LocalDate date) throws OrderDataPersistenceException {
-        return new ArrayList<>(load(date).values());
+        try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+            return new ArrayList<>(load(date).values());
+        }
+    }
+
+    @Override
+    public List<LocalDate> getAllOrderDates() throws OrderDataPersistenceException {
+        return new ArrayList<>(listOrderDates());
+    }
+
+    @Override
+    public Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException {
+        if (from.isAfter(to)) {
+            return Stream.empty();
+        }
+        // only the dates that have a file, so missing days cost nothing
+        SortedSet<LocalDate> dates = listOrderDates().subSet(from, to.plusDays(1));
+        ExecutorService executor;
+        int maxDaysInFlight;
+        synchronized (this) {
+            executor = rangeExecutor;
+            maxDaysInFlight = maxRangeDaysInFlight;
+        }
+        return DayReadAhead.stream(dates, this::readDay, executor, maxDaysInFlight);
+    }
+
+    private List<Order> readDay(LocalDate date) throws OrderDataPersistenceException {
+        List<Order> orders;
+        // a cached day may be changed by a writer, so it is copied under the day's read lock;
+        // days on other stripes are read ahead in parallel
+        try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+            orders = new ArrayList<>(loadForScan(date).values());
+        }
+        orders.sort(Comparator.comparingInt(Order::getOrderNumber));
+        return orders;
     }
 
     @Override
     public Order removeOrder(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
-        HashMap<Integer, Order> orders = load(date);
-        Order removedOrder = orders.remove(orderNumber);
-        save(date, orders);
-        return removedOrder;
+        try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+            HashMap<Integer, Order> orders = load(date);
+            DailyRollup rollup = indexes.rollupOf(date, orders);
+            Order removedOrder = orders.remove(orderNumber);
+            if (!journaled) {
+                save(date, orders);
+            } else if (removedOrder != null) {
+                appendToJournal(date, orders, OrderJournal.record(OrderJournal.REMOVE, String.valueOf(orderNumber)));
+            }
+            indexes.replace(date, removedOrder, null);
+            // an unchanged day file may have been rewritten too, so the rollup is always stamped again
+            rollup.replace(removedOrder, null);
+            storeRollup(rollup);
+            if (removedOrder != null) {
+                indexes.numbersRemoved(List.of(orderNumber));
+            }
+            return removedOrder;
+        }
     }
 
     @Override
     public Order updateOrder(int orderNumber, LocalDate date ,Order newOrder) throws OrderDataPersistenceException {
-        HashMap<Integer, Order> orderMap = load(date);
-        Order previousOrder = orderMap.replace(orderNumber, newOrder);
-        save(date, orderMap);
-        //returns null if key did not already exist
-        //else previous Order object
-        return previousOrder;
+        try (OrderDayLocks.Held held = locks.lockDayForWrite(date)) {
+            HashMap<Integer, Order> orderMap = load(date);
+            DailyRollup rollup = indexes.rollupOf(date, orderMap);
+            Order previousOrder = orderMap.replace(orderNumber, newOrder);
+            if (!journaled) {
+                save(date, orderMap);
+            } else if (previousOrder != null) {
+                appendToJournal(date, orderMap, OrderJournal.record(OrderJournal.UPDATE, marshallOrder(newOrder, false)));
+            }
+            if (previousOrder != null) {
+                indexes.replace(date, previousOrder, newOrder);
+                rollup.replace(previousOrder, newOrder);
+            }
+            storeRollup(rollup);
+            //returns null if key did not already exist
+            //else previous Order object
+            return previousOrder;
+        }
     }
 
     @Override
-    public Order getByOrderAndDate(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
-        //since load() returns a hashmap, simply retrieve the orderNumber key
-        Order order = load(date).get(orderNumber);
-        if (order != null){
+    public Order getByOrderNumber(int orderNumber) throws OrderDataPersistenceException {
+        LocalDate date = indexes.dateOf(orderNumber);
+        // only the one day file the index points at is read, and checked, since a
+        // crash can leave the index pointing at a day that never got the order
+        Order order = null;
+        if (date != null) {
+            try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+                order = load(date).get(orderNumber);
+            } catch (OrderDataPersistenceException e) {
+                // the day file is gone, so is the order
+            }
+        }
+        if (order != null) {
             return order;
         } else {
             throw new OrderDataPersistenceException("No such order found.");
@@ -224,38 +780,56 @@ public class OrderDaoFileImpl implements OrderDao{
     }
 
     @Override
-    public void exportAll() throws OrderDataPersistenceException {
-        //iterate through all the files in the folder path
-        //load data for each
-        //export this to export folder path
-
-        File orderFolder = new File(ORDER_FOLDER_PATH);
-        if (!orderFolder.exists() || !orderFolder.isDirectory()) {
-            throw new OrderDataPersistenceException("Could not load order files.");
+    public List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException {
+        List<Order> orders = new ArrayList<>();
+        // only the days and orders the index points at are read
+        for (Map.Entry<LocalDate, SortedSet<Integer>> day : indexes.find(field, value).entrySet()) {
+            try (OrderDayLocks.Held held = locks.lockDayForRead(day.getKey())) {
+                HashMap<Integer, Order> orderMap = loadForScan(day.getKey());
+                for (int orderNumber : day.getValue()) {
+                    Order order = orderMap.get(orderNumber);
+                    if (order != null) {
+                        orders.add(order);
+                    }
+                }
+            }
         }
+        return orders;
+    }
 
-        HashMap<Integer, Order> allOrders = new HashMap<>();
+    @Override
+    public DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException {
+        try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+            return indexes.dailyRollup(date);
+        }
+    }
 
-        //just making we only retrieve the Order files, although there should not be anything else there
-        File[] files = orderFolder.listFiles(
-                (dir, name) -> name.startsWith("Orders_") && name.endsWith(".txt")
-        );
-        if (files != null) {
-            for (File file : files) {
-                String filename = file.getName();
-                // retrieve the date so we can add it
-                String dateString = filename.substring(7, 15);
-                LocalDate date = LocalDate.parse(dateString, FORMATTER);
+    // a journaled write only keeps the rollup in memory, compactDay() writes it with the day file
+    private void storeRollup(DailyRollup rollup) {
+        indexes.storeRollup(rollup, journaled);
+    }
 
-                // now save all these orders in the hashmap once we call the load method to handle it for us
-                allOrders.putAll(load(date));
+    @Override
+    public Order getByOrderAndDate(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
+        try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+            //since load() returns a hashmap, simply retrieve the orderNumber key
+            Order order = load(date).get(orderNumber);
+            if (order != null){
+                return order;
+            } else {
+                throw new OrderDataPersistenceException("No such order found.");
             }
         }
-        // then save all the orders into a separate file in the export folder
-        saveExportFile(allOrders);
     }
 
-    private void saveExportFile(HashMap<Integer, Order> orders) throws OrderDataPersistenceException {
+    @Override
+    public synchronized void exportAll() throws OrderDataPersistenceException {
+        //only one export at a time, each day is read under its own read lock
+        //iterate through all the days in the folder path, one day at a time,
+        //and stream each of them into the export file so memory use doesn't
+        //grow with the size of the order history
+        SortedSet<LocalDate> dates = listOrderDates();
+
         File exportFolder = new File(EXPORT_FOLDER_PATH);
         if (!exportFolder.exists()) {
             exportFolder.mkdirs();
@@ -263,63 +837,171 @@ public class OrderDaoFileImpl implements OrderDao{
 
         //saving it as Backup_<date of the backup request>
         String exportFileName = "Backup_" + LocalDate.now().format(FORMATTER) + ".txt";
-        File exportFile = new File(exportFolder, exportFileName);
+        Path exportFile = Paths.get(EXPORT_FOLDER_PATH, exportFileName);
+
+        try (BufferedWriter out = Files.newBufferedWriter(exportFile)) {
+            //write header file
+            out.write("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total,Date");
+            out.newLine();
+            if (exportExecutor == null) {
+                for (LocalDate date : dates) {
+                    writeLines(exportDay(date), out);
+                }
+            } else {
+                exportInParallel(dates, out);
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not save order data to file.", e);
+        }
+    }
 
-        PrintWriter out;
+    private void exportInParallel(SortedSet<LocalDate> dates, BufferedWriter out)
+            throws IOException, OrderDataPersistenceException {
+        // days are converted on the executor while this thread writes them out in date order;
+        // only a window of days is submitted ahead of the writer so memory stays bounded
+        Deque<Future<List<String>>> inFlight = new ArrayDeque<>();
+        Iterator<LocalDate> nextDates = dates.iterator();
         try {
-            out = new PrintWriter(new FileWriter(exportFile));
-        } catch (IOException e){
-            throw new OrderDataPersistenceException("Could not save order data to file.", e);
+            while (nextDates.hasNext() || !inFlight.isEmpty()) {
+                while (nextDates.hasNext() && inFlight.size() < maxExportDaysInFlight) {
+                    LocalDate date = nextDates.next();
+                    inFlight.add(exportExecutor.submit(() -> exportDay(date)));
+                }
+                writeLines(inFlight.poll().get(), out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderDataPersistenceException("Export was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new OrderDataPersistenceException("Could not export order data.", e.getCause());
+        } finally {
+            for (Future<List<String>> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+    }
 
+    private void writeLines(List<String> lines, BufferedWriter out) throws IOException {
+        for (String line : lines) {
+            out.write(line);
+            out.newLine();
         }
+    }
 
-        //write header file
-        out.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total,Date");
-        String orderAsText;
+    // turns one day into backup lines, sorted by order number
+    private List<String> exportDay(LocalDate date) throws IOException, OrderDataPersistenceException {
+        try (OrderDayLocks.Held held = locks.lockDayForRead(date)) {
+            return exportLockedDay(date);
+        }
+    }
 
-        //write the content
-        for (Order order : orders.values()) {
-            orderAsText = this.marshallOrder(order, true);
-            // write the order object to the file
-            out.println(orderAsText);
-            // force to write line to file
-            out.flush();
+    private List<String> exportLockedDay(LocalDate date) throws IOException, OrderDataPersistenceException {
+        List<String> lines = new ArrayList<>();
+        // a day with pending journal records has to be replayed before it can be exported
+        if (journal.exists(date)) {
+            for (Order order : new TreeMap<>(loadForScan(date)).values()) {
+                lines.add(marshallOrder(order, true));
+            }
+            return lines;
         }
-        out.close();
 
+        // otherwise the day file is up to date: a backup line is the order line plus its date,
+        // so lines are copied over without turning them into Order objects
+        String orderFilePath = ORDER_FOLDER_PATH + "/Orders_" + date.format(FORMATTER) + ".txt";
+        String dateSuffix = DELIMITER + date;
+        if (memoryMappedReads) {
+            MappedTextFile.forEachLine(Paths.get(orderFilePath), true,
+                    (buffer, start, end) -> lines.add(buffer.subSequence(start, end) + dateSuffix));
+        } else {
+            try (BufferedReader in = new BufferedReader(new FileReader(orderFilePath))) {
+                // skip the first header line
+                String currentLine = in.readLine();
+                while ((currentLine = in.readLine()) != null) {
+                    if (!currentLine.isEmpty()) {
+                        lines.add(currentLine + dateSuffix);
+                    }
+                }
+            }
+        }
+        // the day file is written in HashMap order, the backup is ordered by order number
+        lines.sort(Comparator.comparingInt(OrderDaoFileImpl::leadingOrderNumber));
+        return lines;
     }
 
+    private static int leadingOrderNumber(String orderLine) {
+        return Integer.parseInt(orderLine.substring(0, orderLine.indexOf(DELIMITER)));
+    }
 
     public int getMaxOrderNumber() throws OrderDataPersistenceException {
-        File orderFolder = new File(ORDER_FOLDER_PATH);
+        // normally the persisted sequence already knows the answer
+        Integer highWaterMark = sequence.read();
+        if (highWaterMark != null) {
+            return highWaterMark;
+        }
+        // sequence file missing or corrupt: recover it with a full scan, with the writers
+        // held off so the sequence can't be set below an order added during the scan
+        try (OrderDayLocks.Held held = locks.lockHistory()) {
+            highWaterMark = sequence.read();
+            if (highWaterMark != null) {
+                return highWaterMark;
+            }
+            int maxOrderNumber = scanMaxOrderNumber();
+            sequence.write(maxOrderNumber);
+            return maxOrderNumber;
+        }
+    }
 
-        if (orderFolder.exists() && orderFolder.isDirectory()){
-            File[] files = orderFolder.listFiles();
-            Set<Integer> orderNumbers = new HashSet<>();
-            //if there are any files, then we have to iterate through them
-            // and fin the max orderNumber
-            if (files != null) {
-                for (File file: files){
-                    //retrieve the filename so we can get the date
-                    String filename = file.getName();
-                    // filename format: Orders_01012001.txt
-                    String dateString = filename.substring(7,15);
-                    LocalDate date = LocalDate.parse(dateString, FORMATTER);
-
-                    //now we call load with the retrieved date and perform
-                    //union operation on the big set of all keys (=orderNumbers)
-                    Set<Integer> keySey = load(date).keySet();
-                    orderNumbers.addAll(keySey);
-                }
+    // before a write takes its day lock: a missing sequence is rebuilt with the full scan,
+    // it must never be persisted below the orders already on disk
+    private void recoverSequence() throws OrderDataPersistenceException {
+        if (!sequence.isKnown()) {
+            getMaxOrderNumber();
+        }
+    }
+
+    private int scanMaxOrderNumber() throws OrderDataPersistenceException {
+        int maxOrderNumber = 0;
+        //iterate through all the days and find the max orderNumber
+        for (LocalDate date : listOrderDates()) {
+            maxOrderNumber = Math.max(maxOrderNumber, maxOrderNumberOfDay(date));
+        }
+        // if we don't have anything, this stays 0
+        return maxOrderNumber;
+    }
+
+    private int maxOrderNumberOfDay(LocalDate date) throws OrderDataPersistenceException {
+        if (cache.get(date) != null || journal.exists(date)) {
+            int maxOrderNumber = 0;
+            //the keys of each day are its orderNumbers
+            for (int orderNumber : loadForScan(date).keySet()) {
+                maxOrderNumber = Math.max(maxOrderNumber, orderNumber);
             }
-            // compare the order numbers and get max, but if we don't have anything, return 0
-            return orderNumbers.stream()
-                    .max(Integer::compareTo)
-                    .orElse(0);
-        } else{
-            throw new OrderDataPersistenceException("Could not load the orders.");
+            return maxOrderNumber;
         }
 
+        // only the first field of each line is needed, so the rest of the line is never parsed
+        String orderFilePath = ORDER_FOLDER_PATH + "/Orders_" + date.format(FORMATTER) + ".txt";
+        CsvLineParser fields = new CsvLineParser();
+        int[] maxOrderNumber = {0};
+        try {
+            if (memoryMappedReads) {
+                MappedTextFile.forEachLine(Paths.get(orderFilePath), true, (buffer, start, end) ->
+                        maxOrderNumber[0] = Math.max(maxOrderNumber[0], fields.reset(buffer, start, end).nextInt()));
+            } else {
+                try (BufferedReader in = new BufferedReader(new FileReader(orderFilePath))) {
+                    // skip the first header line
+                    String currentLine = in.readLine();
+                    while ((currentLine = in.readLine()) != null) {
+                        if (!currentLine.isEmpty()) {
+                            maxOrderNumber[0] = Math.max(maxOrderNumber[0], fields.reset(currentLine).nextInt());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not load the orders.", e);
+        }
+        return maxOrderNumber[0];
     }
 
 }
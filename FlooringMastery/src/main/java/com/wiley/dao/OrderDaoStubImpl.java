@@ -1,11 +1,13 @@
 package com.wiley.dao;
 
+import com.wiley.model.DailyRollup;
 import com.wiley.model.Order;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class OrderDaoStubImpl implements OrderDao{
     public Order onlyOrder;
@@ -39,6 +41,33 @@ public class OrderDaoStubImpl implements OrderDao{
         }
     }
 
+    @Override
+    public void addOrders(List<Order> orders, LocalDate date) throws OrderDataPersistenceException {
+        for (Order order : orders) {
+            addOrder(order, date);
+        }
+    }
+
+    @Override
+    public List<Order> applyBatch(LocalDate date, List<OrderMutation> mutations) throws OrderDataPersistenceException {
+        List<Order> previousOrders = new ArrayList<>();
+        for (OrderMutation mutation : mutations) {
+            switch (mutation.getType()) {
+                case ADD:
+                    previousOrders.add(addOrder(mutation.getOrder(), date));
+                    break;
+                case UPDATE:
+                    previousOrders.add(mutation.appliesTo(onlyOrder)
+                            ? updateOrder(mutation.getOrderNumber(), date, mutation.getOrder())
+                            : null);
+                    break;
+                default:
+                    previousOrders.add(removeOrder(mutation.getOrderNumber(), date));
+            }
+        }
+        return previousOrders;
+    }
+
     @Override
     public List<Order> getAllOrdersByDay(LocalDate date) throws OrderDataPersistenceException {
         List<Order> orders = new ArrayList<>();
@@ -48,6 +77,21 @@ public class OrderDaoStubImpl implements OrderDao{
         return orders;
     }
 
+    @Override
+    public List<LocalDate> getAllOrderDates() throws OrderDataPersistenceException {
+        List<LocalDate> dates = new ArrayList<>();
+        dates.add(onlyOrder.getDate());
+        return dates;
+    }
+
+    @Override
+    public Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException {
+        if (onlyOrder.getDate().isBefore(from) || onlyOrder.getDate().isAfter(to)) {
+            return Stream.empty();
+        }
+        return Stream.of(onlyOrder);
+    }
+
     @Override
     public Order removeOrder(int orderNumber, LocalDate date) throws OrderDataPersistenceException {
         if (orderNumber == onlyOrder.getOrderNumber() && date.equals(onlyOrder.getDate())){
@@ -90,6 +134,33 @@ public class OrderDaoStubImpl implements OrderDao{
         }
     }
 
+    @Override
+    public Order getByOrderNumber(int orderNumber) throws OrderDataPersistenceException {
+        if (orderNumber == onlyOrder.getOrderNumber()) {
+            return onlyOrder;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException {
+        List<Order> orders = new ArrayList<>();
+        if (value.equalsIgnoreCase(field.valueOf(onlyOrder))) {
+            orders.add(onlyOrder);
+        }
+        return orders;
+    }
+
+    @Override
+    public DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException {
+        DailyRollup rollup = new DailyRollup(date);
+        if (date.equals(onlyOrder.getDate())) {
+            rollup.add(onlyOrder);
+        }
+        return rollup;
+    }
+
     @Override
     public void exportAll() {
 
@@ -0,0 +1,108 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of order maps, one entry per day file.
+ * Entries are kept in least recently used order and evicted once either
+ * the number of cached days or the estimated heap usage goes over its bound.
+ */
+public class OrderDayCache {
+    // rough heap cost of one cached order: the Order itself, its 8 BigDecimals,
+    // its 3 Strings and the HashMap entry pointing to it
+    public static final long ESTIMATED_BYTES_PER_ORDER = 1024;
+
+    private final int maxDays;
+    private final long memoryBudget;
+    private long estimatedBytes = 0;
+    //Map<date, Map<orderNumber, Order>>, access ordered so the eldest entry is the least recently used
+    private final LinkedHashMap<LocalDate, HashMap<Integer, Order>> days = new LinkedHashMap<>(16, 0.75f, true);
+    //Map<date, estimated bytes at the time the day was put in the cache>
+    private final Map<LocalDate, Long> daySizes = new HashMap<>();
+
+    /**
+     * @param maxDays maximum number of days kept in memory, 0 disables the cache
+     * @param memoryBudget maximum estimated heap usage in bytes of all the cached days
+     */
+    public OrderDayCache(int maxDays, long memoryBudget) {
+        this.maxDays = maxDays;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the cached order map for the given day and marks it as recently used.
+     *
+     * @param date the day to look up
+     * @return the cached order map, null if the day is not cached
+     */
+    public synchronized HashMap<Integer, Order> get(LocalDate date) {
+        return days.get(date);
+    }
+
+    /**
+     * Caches (or re-caches after a write) the order map of the given day,
+     * evicting the least recently used days if a bound is exceeded.
+     * A day that on its own does not fit in the memory budget is not cached.
+     *
+     * @param date the day the orders belong to
+     * @param orders the full order map of that day
+     */
+    public synchronized void put(LocalDate date, HashMap<Integer, Order> orders) {
+        invalidate(date);
+        long size = orders.size() * ESTIMATED_BYTES_PER_ORDER;
+        if (maxDays <= 0 || size > memoryBudget) {
+            return;
+        }
+        days.put(date, orders);
+        daySizes.put(date, size);
+        estimatedBytes += size;
+
+        // evict least recently used days until we are back under both bounds
+        Iterator<Map.Entry<LocalDate, HashMap<Integer, Order>>> eldest = days.entrySet().iterator();
+        while ((days.size() > maxDays || estimatedBytes > memoryBudget) && eldest.hasNext()) {
+            LocalDate eldestDate = eldest.next().getKey();
+            eldest.remove();
+            estimatedBytes -= daySizes.remove(eldestDate);
+        }
+    }
+
+    /**
+     * Drops the given day from the cache, e.g. after a failed write.
+     *
+     * @param date the day to drop
+     */
+    public synchronized void invalidate(LocalDate date) {
+        if (days.remove(date) != null) {
+            estimatedBytes -= daySizes.remove(date);
+        }
+    }
+
+    /**
+     * Drops every cached day.
+     */
+    public synchronized void clear() {
+        days.clear();
+        daySizes.clear();
+        estimatedBytes = 0;
+    }
+
+    /**
+     * @return the number of days currently cached
+     */
+    public synchronized int size() {
+        return days.size();
+    }
+
+    /**
+     * @return the estimated heap usage in bytes of the cached days
+     */
+    public synchronized long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+}
@@ -0,0 +1,250 @@
+package com.wiley.dao;
+
+import com.wiley.model.DailyRollup;
+import com.wiley.model.Order;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * What an order DAO keeps about its days besides the day files: the search index
+ * for findOrders(), the persistent order number index for getByOrderNumber() and
+ * the per-day rollups for getDailyRollup(). Both file formats keep them the same
+ * way, only reading the days differs, which the DAO provides as a {@link History}.
+ *
+ * The DAO calls the write methods while it holds the day being written.
+ */
+// try (OrderDayLocks.Held held = ...) only keeps the writers out for the block, held is never read in it
+@SuppressWarnings("try")
+final class OrderDayIndexes {
+
+    /**
+     * The DAO's view of its days, for the passes that build an index from every day.
+     */
+    interface History {
+        /**
+         * @return every date that has orders
+         * @throws OrderDataPersistenceException if the dates cannot be listed
+         */
+        Collection<LocalDate> dates() throws OrderDataPersistenceException;
+
+        /**
+         * @param date a date that has orders
+         * @return the day's orders by order number, not to be changed
+         * @throws OrderDataPersistenceException if the day cannot be read
+         */
+        Map<Integer, Order> scan(LocalDate date) throws OrderDataPersistenceException;
+
+        /**
+         * @param date the day to look at
+         * @return true if the day has a day file or pending changes
+         */
+        boolean hasOrders(LocalDate date);
+
+        /**
+         * Keeps the writers out while every day is scanned, so none of their changes is missed.
+         *
+         * @return the lock to close after the scan
+         */
+        OrderDayLocks.Held holdWriters();
+    }
+
+    private final History history;
+    // persisted order number -> date, for getByOrderNumber()
+    private final OrderNumberIndex numberIndex;
+    // per-day totals for getDailyRollup(), updated after every write to a day
+    private final OrderRollupStore rollups;
+    // secondary indexes for findOrders(), built by the first search and kept up to date after that
+    private volatile OrderIndex index;
+
+    /**
+     * @param ORDER_FOLDER_PATH the folder of the day files, the indexes are kept next to them
+     * @param DAY_FILE_EXTENSION the extension of the day files, e.g. ".txt"
+     * @param history reads the days when an index has to be built from them
+     */
+    OrderDayIndexes(String ORDER_FOLDER_PATH, String DAY_FILE_EXTENSION, History history) {
+        this.history = history;
+        this.numberIndex = new OrderNumberIndex(ORDER_FOLDER_PATH);
+        this.rollups = new OrderRollupStore(ORDER_FOLDER_PATH, DAY_FILE_EXTENSION);
+    }
+
+    /**
+     * @param orderNumber the order to look for
+     * @return the date the order was last added on, null if it is not known; after a
+     *         crash the day may not have the order, so the caller checks it
+     * @throws OrderDataPersistenceException if the index has to be rebuilt and a day cannot be read
+     */
+    LocalDate dateOf(int orderNumber) throws OrderDataPersistenceException {
+        if (!numberIndex.isLoaded() && !numberIndex.load()) {
+            // no usable index file yet: build it once from every day
+            try (OrderDayLocks.Held held = history.holdWriters()) {
+                if (!numberIndex.isLoaded() && !numberIndex.load()) {
+                    Map<Integer, LocalDate> scannedDates = new HashMap<>();
+                    for (LocalDate date : history.dates()) {
+                        for (int number : history.scan(date).keySet()) {
+                            scannedDates.put(number, date);
+                        }
+                    }
+                    numberIndex.rebuild(scannedDates);
+                }
+            }
+        }
+        return numberIndex.lookup(orderNumber);
+    }
+
+    /**
+     * @param field the field to search
+     * @param value the value to look for
+     * @return the order numbers that match, per day
+     * @throws OrderDataPersistenceException if the index has to be built and a day cannot be read
+     */
+    SortedMap<LocalDate, SortedSet<Integer>> find(OrderSearchField field, String value)
+            throws OrderDataPersistenceException {
+        OrderIndex currentIndex = index;
+        if (currentIndex == null) {
+            // one pass over the whole history, later mutations update the index as they happen
+            try (OrderDayLocks.Held held = history.holdWriters()) {
+                if (index == null) {
+                    OrderIndex newIndex = new OrderIndex();
+                    for (LocalDate date : history.dates()) {
+                        for (Order order : history.scan(date).values()) {
+                            newIndex.add(date, order);
+                        }
+                    }
+                    index = newIndex;
+                }
+                currentIndex = index;
+            }
+        }
+        return currentIndex.find(field, value);
+    }
+
+    /**
+     * Indexes orders before they are written, so a crash leaves the index
+     * pointing at a day without the order rather than missing it.
+     */
+    void numbersAdded(List<Integer> orderNumbers, LocalDate date) throws OrderDataPersistenceException {
+        numberIndex.put(orderNumbers, date);
+    }
+
+    /**
+     * Drops orders from the number index after they were removed from their day.
+     */
+    void numbersRemoved(List<Integer> orderNumbers) throws OrderDataPersistenceException {
+        numberIndex.remove(orderNumbers);
+    }
+
+    /**
+     * Records one written change in the search index.
+     *
+     * @param previousOrder the order before the change, null for an added order
+     * @param newOrder the order after the change, null for a removed order
+     */
+    void replace(LocalDate date, Order previousOrder, Order newOrder) {
+        OrderIndex currentIndex = index;
+        if (currentIndex != null) {
+            currentIndex.replace(date, previousOrder, newOrder);
+        }
+    }
+
+    /**
+     * Records a written batch in the search index and in the day's rollup;
+     * the rollup still has to be stored.
+     *
+     * @param rollup the day's rollup from before the batch, see {@link #rollupOf(LocalDate, Map)}
+     * @param previousOrders what applying each mutation replaced, in the order of the mutations
+     */
+    void replaceAll(LocalDate date, DailyRollup rollup, List<OrderMutation> mutations, List<Order> previousOrders) {
+        for (int i = 0; i < mutations.size(); i++) {
+            OrderMutation mutation = mutations.get(i);
+            Order previousOrder = previousOrders.get(i);
+            // an update or remove of a missing order changed nothing
+            if (mutation.getType() == OrderMutation.Type.ADD || previousOrder != null) {
+                replace(date, previousOrder, mutation.getOrder());
+                rollup.replace(previousOrder, mutation.getOrder());
+            }
+        }
+    }
+
+    /**
+     * @return the order numbers a batch adds
+     */
+    static List<Integer> addedOrderNumbers(List<OrderMutation> mutations) {
+        List<Integer> added = new ArrayList<>();
+        for (OrderMutation mutation : mutations) {
+            if (mutation.getType() == OrderMutation.Type.ADD) {
+                added.add(mutation.getOrderNumber());
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @param orderMap the day after the batch
+     * @return the orders a batch removed and didn't add back
+     */
+    static List<Integer> removedOrderNumbers(List<OrderMutation> mutations, Map<Integer, Order> orderMap) {
+        List<Integer> removed = new ArrayList<>();
+        for (OrderMutation mutation : mutations) {
+            if (mutation.getType() == OrderMutation.Type.REMOVE && !orderMap.containsKey(mutation.getOrderNumber())) {
+                removed.add(mutation.getOrderNumber());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @param date the day about to be written
+     * @param orderMap the day's orders before the write
+     * @return the day's rollup before the write, added up from the orders if none matches the day on disk
+     */
+    DailyRollup rollupOf(LocalDate date, Map<Integer, Order> orderMap) {
+        DailyRollup rollup = rollups.read(date);
+        if (rollup == null) {
+            rollup = new DailyRollup(date);
+            for (Order order : orderMap.values()) {
+                rollup.add(order);
+            }
+        }
+        return rollup;
+    }
+
+    /**
+     * Stores a day's rollup after a write to the day.
+     *
+     * @param inMemoryOnly true when only the day's journal was written, so the rollup
+     *                     is written with the day file later
+     */
+    void storeRollup(DailyRollup rollup, boolean inMemoryOnly) {
+        if (inMemoryOnly) {
+            rollups.keep(rollup);
+        } else {
+            rollups.write(rollup);
+        }
+    }
+
+    /**
+     * @param date the day to total, held for reading by the caller
+     * @return a copy of the day's rollup, computed and stored first if there is none
+     * @throws OrderDataPersistenceException if the day has to be read and cannot be
+     */
+    DailyRollup dailyRollup(LocalDate date) throws OrderDataPersistenceException {
+        DailyRollup rollup = rollups.read(date);
+        if (rollup == null) {
+            if (!history.hasOrders(date)) {
+                // no orders on that day
+                return new DailyRollup(date);
+            }
+            rollup = rollupOf(date, history.scan(date));
+            rollups.write(rollup);
+        }
+        // the stored rollup keeps changing with the day, callers get their own copy
+        return new DailyRollup(rollup);
+    }
+}
@@ -0,0 +1,88 @@
+package com.wiley.dao;
+
+import java.time.LocalDate;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-write locks for the days of an order folder, so reads of a day run
+ * together, writes to different days run in parallel and writes to the same day
+ * run one after the other. Days share a fixed number of lock stripes instead of
+ * getting a lock each, so the locks don't grow with the order history; two days
+ * on the same stripe simply wait for each other.
+ *
+ * On top of the days there is one lock for the whole history: every day lock
+ * holds it shared, and {@link #lockHistory()} takes it alone, for the few jobs
+ * that scan every day and must not miss a write that happens during the scan.
+ * Always take the history lock before a day lock, never the other way round.
+ *
+ * Every lock method returns a {@link Held} to use in a try-with-resources block.
+ */
+public class OrderDayLocks {
+    public static final int DEFAULT_STRIPES = 64;
+    private final ReadWriteLock historyLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock[] stripes;
+
+    /**
+     * A lock that is held until it is closed.
+     */
+    public interface Held extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public OrderDayLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripeCount number of locks the days are spread over, rounded up to a power of two
+     */
+    public OrderDayLocks(int stripeCount) {
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Locks one day for reading: other readers of the day can go on, writers wait.
+     */
+    public Held lockDayForRead(LocalDate date) {
+        return lock(historyLock.readLock(), stripe(date).readLock());
+    }
+
+    /**
+     * Locks one day for writing: everything else on the day (and its stripe) waits.
+     */
+    public Held lockDayForWrite(LocalDate date) {
+        return lock(historyLock.readLock(), stripe(date).writeLock());
+    }
+
+    /**
+     * Waits for every day lock to be released and keeps new ones out until closed.
+     * Must not be called while holding a day lock, that would wait for itself.
+     */
+    public Held lockHistory() {
+        Lock history = historyLock.writeLock();
+        history.lock();
+        return history::unlock;
+    }
+
+    private ReadWriteLock stripe(LocalDate date) {
+        // spread neighbouring days over different stripes
+        int hash = Long.hashCode(date.toEpochDay() * 0x9E3779B97F4A7C15L);
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static Held lock(Lock history, Lock day) {
+        history.lock();
+        day.lock();
+        return () -> {
+            day.unlock();
+            history.unlock();
+        };
+    }
+}
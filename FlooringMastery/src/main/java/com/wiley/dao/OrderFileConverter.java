@@ -0,0 +1,72 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Copies the order history from one storage format to another, one day at a time,
+ * e.g. the Orders_MMddyyyy.txt files into the binary files of {@link OrderDaoBinaryImpl}
+ * and back. Each day is read once and written once.
+ *
+ * Usage: java com.wiley.dao.OrderFileConverter &lt;toBinary|toText&gt; &lt;sourceFolder&gt; &lt;targetFolder&gt;
+ */
+public class OrderFileConverter {
+
+    private OrderFileConverter() {
+    }
+
+    /**
+     * Copies every day of the source into the target. Days that already exist in the
+     * target keep their orders, orders with the same number are replaced.
+     *
+     * @param source the orders to copy
+     * @param target where to copy them
+     * @return the number of orders copied
+     * @throws OrderDataPersistenceException if a day cannot be read or written
+     */
+    public static int copy(OrderDao source, OrderDao target) throws OrderDataPersistenceException {
+        int copied = 0;
+        for (LocalDate date : source.getAllOrderDates()) {
+            List<Order> orders = source.getAllOrdersByDay(date);
+            target.addOrders(orders, date);
+            copied += orders.size();
+        }
+        return copied;
+    }
+
+    /**
+     * @param textFolder folder with Orders_MMddyyyy.txt files
+     * @param binaryFolder folder to write the Orders_MMddyyyy.bin files to, created if needed
+     * @return the number of orders converted
+     * @throws OrderDataPersistenceException if a day cannot be read or written
+     */
+    public static int toBinary(String textFolder, String binaryFolder) throws OrderDataPersistenceException {
+        new File(binaryFolder).mkdirs();
+        return copy(new OrderDaoFileImpl(textFolder, textFolder), new OrderDaoBinaryImpl(binaryFolder, binaryFolder));
+    }
+
+    /**
+     * @param binaryFolder folder with Orders_MMddyyyy.bin files
+     * @param textFolder folder to write the Orders_MMddyyyy.txt files to, created if needed
+     * @return the number of orders converted
+     * @throws OrderDataPersistenceException if a day cannot be read or written
+     */
+    public static int toText(String binaryFolder, String textFolder) throws OrderDataPersistenceException {
+        new File(textFolder).mkdirs();
+        return copy(new OrderDaoBinaryImpl(binaryFolder, binaryFolder), new OrderDaoFileImpl(textFolder, textFolder));
+    }
+
+    public static void main(String[] args) throws OrderDataPersistenceException {
+        if (args.length != 3 || !(args[0].equals("toBinary") || args[0].equals("toText"))) {
+            System.out.println("Usage: OrderFileConverter <toBinary|toText> <sourceFolder> <targetFolder>");
+            return;
+        }
+        int converted = args[0].equals("toBinary")
+                ? toBinary(args[1], args[2])
+                : toText(args[1], args[2]);
+        System.out.println("Converted " + converted + " orders from " + args[1] + " into " + args[2]);
+    }
+}
@@ -0,0 +1,100 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * In-memory inverted indexes from customer name, state and product type to the
+ * dates and order numbers of the orders that have them, so a search only touches
+ * the matching orders instead of every day file. Values are matched ignoring case.
+ * The index is filled once from the whole history and then kept up to date by the
+ * dao on every add, edit and remove.
+ */
+public class OrderIndex {
+    // field -> value -> date -> order numbers
+    private final Map<OrderSearchField, Map<String, SortedMap<LocalDate, SortedSet<Integer>>>> indexes =
+            new EnumMap<>(OrderSearchField.class);
+
+    public OrderIndex() {
+        for (OrderSearchField field : OrderSearchField.values()) {
+            indexes.put(field, new HashMap<>());
+        }
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param date the date of the order
+     * @param order the order to index under each of its field values
+     */
+    public synchronized void add(LocalDate date, Order order) {
+        for (OrderSearchField field : OrderSearchField.values()) {
+            indexes.get(field)
+                    .computeIfAbsent(key(field.valueOf(order)), value -> new TreeMap<>())
+                    .computeIfAbsent(date, day -> new TreeSet<>())
+                    .add(order.getOrderNumber());
+        }
+    }
+
+    /**
+     * @param date the date of the order
+     * @param order the order as it was indexed, its field values tell where to remove it from
+     */
+    public synchronized void remove(LocalDate date, Order order) {
+        for (OrderSearchField field : OrderSearchField.values()) {
+            Map<String, SortedMap<LocalDate, SortedSet<Integer>>> index = indexes.get(field);
+            String key = key(field.valueOf(order));
+            SortedMap<LocalDate, SortedSet<Integer>> dates = index.get(key);
+            if (dates == null) {
+                continue;
+            }
+            SortedSet<Integer> orderNumbers = dates.get(date);
+            if (orderNumbers != null) {
+                orderNumbers.remove(order.getOrderNumber());
+                // drop empty entries so the index doesn't keep growing with removed values
+                if (orderNumbers.isEmpty()) {
+                    dates.remove(date);
+                }
+            }
+            if (dates.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Keeps the index in line with one mutation of an order.
+     *
+     * @param date the date of the order
+     * @param previousOrder the order before the change, null if it was added
+     * @param newOrder the order after the change, null if it was removed
+     */
+    public synchronized void replace(LocalDate date, Order previousOrder, Order newOrder) {
+        if (previousOrder != null) {
+            remove(date, previousOrder);
+        }
+        if (newOrder != null) {
+            add(date, newOrder);
+        }
+    }
+
+    /**
+     * @param field the field to search
+     * @param value the value to look for, any case
+     * @return a copy of the matching order numbers by date, oldest date first
+     */
+    public synchronized SortedMap<LocalDate, SortedSet<Integer>> find(OrderSearchField field, String value) {
+        SortedMap<LocalDate, SortedSet<Integer>> matches = new TreeMap<>();
+        SortedMap<LocalDate, SortedSet<Integer>> dates = indexes.get(field).get(key(value));
+        if (dates != null) {
+            for (Map.Entry<LocalDate, SortedSet<Integer>> day : dates.entrySet()) {
+                matches.put(day.getKey(), new TreeSet<>(day.getValue()));
+            }
+        }
+        return matches;
+    }
+}
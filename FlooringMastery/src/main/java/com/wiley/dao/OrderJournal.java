@@ -0,0 +1,273 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of order mutations, one journal file per day next to the
+ * day's Orders_MMddyyyy.txt snapshot. The snapshot plus the replayed journal
+ * give the current orders of the day until the journal is compacted back
+ * into the snapshot.
+ *
+ * Every record is one line ending with a checksum of the record, e.g.
+ * "REMOVE,123,1a2b3c4d". A crash during an append can leave a torn last line,
+ * "REMOVE,12" say, which may still parse as a different record: only lines
+ * that are complete and match their checksum are replayed. Before the first
+ * append to a day's journal, a torn last line is cut off so the new records
+ * don't end up behind it.
+ */
+public class OrderJournal {
+    public static final String ADD = "ADD";
+    public static final String UPDATE = "UPDATE";
+    public static final String REMOVE = "REMOVE";
+    public static final String DELIMITER = ",";
+    public static final String FILE_EXTENSION = ".journal";
+    // records are written and read back in the platform charset, like the day files
+    private static final Charset CHARSET = Charset.defaultCharset();
+    private final String ORDER_FOLDER_PATH;
+    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final GroupCommitter committer;
+    // days whose journal was checked for a torn last line since we started, only a crash leaves one
+    private final Set<LocalDate> checkedJournals = ConcurrentHashMap.newKeySet();
+
+    public OrderJournal(String ORDER_FOLDER_PATH) {
+        this(ORDER_FOLDER_PATH, new GroupCommitter(ORDER_FOLDER_PATH));
+    }
+
+    /**
+     * @param ORDER_FOLDER_PATH the orders folder
+     * @param committer the committer of the day files: when its writes are durable,
+     *                  appends are forced to disk before they return
+     */
+    public OrderJournal(String ORDER_FOLDER_PATH, GroupCommitter committer) {
+        this.ORDER_FOLDER_PATH = ORDER_FOLDER_PATH;
+        this.committer = committer;
+    }
+
+    /**
+     * Builds a journal record.
+     *
+     * @param type one of ADD, UPDATE or REMOVE
+     * @param payload the marshalled order for ADD/UPDATE, the order number for REMOVE
+     * @return the record as it is written to the journal
+     */
+    public static String record(String type, String payload) {
+        return type + DELIMITER + payload;
+    }
+
+    private File journalFile(LocalDate date) {
+        return new File(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + FILE_EXTENSION);
+    }
+
+    /**
+     * @param date the day to check
+     * @return true if the day has mutations that are not in its snapshot yet
+     */
+    public boolean exists(LocalDate date) {
+        return journalFile(date).exists();
+    }
+
+    /**
+     * Appends records to the journal of the given day, creating it if needed.
+     * The cost only depends on the number of records, not on the size of the day.
+     * With durable writes the records are on disk when this returns.
+     *
+     * @param date the day the mutations belong to
+     * @param records the records to append, built with {@link #record(String, String)}
+     * @throws OrderDataPersistenceException if the journal cannot be written
+     */
+    public void append(LocalDate date, List<String> records) throws OrderDataPersistenceException {
+        File journal = journalFile(date);
+        boolean newJournal = !journal.exists();
+        StringBuilder text = new StringBuilder();
+        for (String record : records) {
+            text.append(record).append(DELIMITER).append(checksum(record)).append('\n');
+        }
+        ByteBuffer bytes = CHARSET.encode(text.toString());
+        try (FileChannel channel = FileChannel.open(journal.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long position = channel.size();
+            if (!newJournal && !checkedJournals.contains(date)) {
+                position = cutTornTail(channel);
+            }
+            // a failed write may leave a torn line of our own, checked again before the next append
+            checkedJournals.remove(date);
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            if (committer.isDurable()) {
+                channel.force(false);
+            }
+            checkedJournals.add(date);
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not write to the order journal.", e);
+        }
+        if (newJournal) {
+            try {
+                // the journal's folder entry has to survive a crash too
+                committer.syncFolder();
+            } catch (IOException e) {
+                throw new OrderDataPersistenceException("Could not write to the order journal.", e);
+            }
+        }
+    }
+
+    /**
+     * Applies the journal of the given day, oldest record first, on top of the
+     * orders read from its snapshot. Does nothing if the day has no journal.
+     *
+     * @param date the day to replay
+     * @param orderMap the orders read from the snapshot, updated in place
+     * @param unmarshaller turns an order line back into an Order
+     * @throws OrderDataPersistenceException if the journal cannot be read
+     */
+    public void replay(LocalDate date, HashMap<Integer, Order> orderMap,
+                       Function<String, Order> unmarshaller) throws OrderDataPersistenceException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(journalFile(date).toPath());
+        } catch (NoSuchFileException e) {
+            // no journal means no pending mutations
+            return;
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not read the order journal.", e);
+        }
+
+        // whatever follows the last line break is a torn append and is not replayed
+        int lineStart = 0;
+        for (int lineEnd = indexOf(bytes, '\n', 0); lineEnd >= 0; lineEnd = indexOf(bytes, '\n', lineStart)) {
+            String currentLine = new String(bytes, lineStart, lineEnd - lineStart, CHARSET);
+            lineStart = lineEnd + 1;
+            String record = recordOf(currentLine);
+            boolean lastLine = indexOf(bytes, '\n', lineStart) < 0;
+            if (record == null && lastLine) {
+                // a complete line with parts of it never written, also from a crash during the append
+                return;
+            }
+            if (record == null) {
+                throw new OrderDataPersistenceException("Corrupt order journal record: " + currentLine);
+            }
+            try {
+                applyRecord(record, date, orderMap, unmarshaller);
+            } catch (RuntimeException e) {
+                // the checksum matches, so this is what was written: a bug, not a crash
+                throw new OrderDataPersistenceException("Corrupt order journal record: " + currentLine, e);
+            }
+        }
+    }
+
+    // cuts off a torn last line, returns the new size of the journal
+    private long cutTornTail(FileChannel channel) throws IOException {
+        byte[] bytes = new byte[(int) channel.size()];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end > 0) {
+            // the last complete line, cut too if its checksum shows it was torn
+            int lastLineStart = end - 1;
+            while (lastLineStart > 0 && bytes[lastLineStart - 1] != '\n') {
+                lastLineStart--;
+            }
+            if (recordOf(new String(bytes, lastLineStart, end - 1 - lastLineStart, CHARSET)) == null) {
+                end = lastLineStart;
+            }
+        }
+        if (end < bytes.length) {
+            channel.truncate(end);
+            if (committer.isDurable()) {
+                channel.force(false);
+            }
+        }
+        return end;
+    }
+
+    // the record of a journal line, null if the line does not match its checksum
+    private static String recordOf(String line) {
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        int checksumStart = line.lastIndexOf(DELIMITER);
+        if (checksumStart < 0) {
+            return null;
+        }
+        String record = line.substring(0, checksumStart);
+        return line.substring(checksumStart + 1).equals(checksum(record)) ? record : null;
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(CHARSET));
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void applyRecord(String record, LocalDate date, HashMap<Integer, Order> orderMap,
+                             Function<String, Order> unmarshaller) {
+        int typeEnd = record.indexOf(DELIMITER);
+        String type = record.substring(0, typeEnd);
+        String payload = record.substring(typeEnd + 1);
+        Order order;
+        switch (type) {
+            case ADD:
+                order = unmarshaller.apply(payload);
+                order.setDate(date);
+                orderMap.put(order.getOrderNumber(), order);
+                break;
+            case UPDATE:
+                order = unmarshaller.apply(payload);
+                order.setDate(date);
+                orderMap.replace(order.getOrderNumber(), order);
+                break;
+            case REMOVE:
+                orderMap.remove(Integer.parseInt(payload));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown order journal record type: " + type);
+        }
+    }
+
+    /**
+     * Deletes the journal of the given day, once its mutations are in the snapshot.
+     *
+     * @param date the day whose journal to delete
+     * @throws OrderDataPersistenceException if the journal exists but cannot be deleted
+     */
+    public void delete(LocalDate date) throws OrderDataPersistenceException {
+        File journal = journalFile(date);
+        checkedJournals.remove(date);
+        if (journal.exists() && !journal.delete()) {
+            throw new OrderDataPersistenceException("Could not delete the order journal.");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+import java.util.Objects;
+
+/**
+ * One add, update or remove of an order, to be applied together with others
+ * against the same day by {@link OrderDao#applyBatch}.
+ */
+public class OrderMutation {
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+
+    private final Type type;
+    private final int orderNumber;
+    private final Order order;
+    private final Order expectedOrder;
+
+    private OrderMutation(Type type, int orderNumber, Order order, Order expectedOrder) {
+        this.type = type;
+        this.orderNumber = orderNumber;
+        this.order = order;
+        this.expectedOrder = expectedOrder;
+    }
+
+    /**
+     * @param order the new order, replacing any order with the same number that day
+     * @return an ADD mutation
+     */
+    public static OrderMutation add(Order order) {
+        return new OrderMutation(Type.ADD, order.getOrderNumber(), order, null);
+    }
+
+    /**
+     * @param order the new data of an existing order, matched by order number
+     * @return an UPDATE mutation
+     */
+    public static OrderMutation update(Order order) {
+        return new OrderMutation(Type.UPDATE, order.getOrderNumber(), order, null);
+    }
+
+    /**
+     * For read-modify-write jobs: the update is skipped if the order was changed
+     * (or removed) since it was read, instead of overwriting that change.
+     *
+     * @param expectedOrder the order as it was read
+     * @param order the new data of the order, matched by order number
+     * @return an UPDATE mutation that only applies while the order still equals expectedOrder
+     */
+    public static OrderMutation updateIfUnchanged(Order expectedOrder, Order order) {
+        return new OrderMutation(Type.UPDATE, order.getOrderNumber(), order, expectedOrder);
+    }
+
+    /**
+     * @param orderNumber the number of the order to remove
+     * @return a REMOVE mutation
+     */
+    public static OrderMutation remove(int orderNumber) {
+        return new OrderMutation(Type.REMOVE, orderNumber, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getOrderNumber() {
+        return orderNumber;
+    }
+
+    /**
+     * @return the new order for ADD and UPDATE, null for REMOVE
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * @param currentOrder the order with this mutation's number as it is stored now, null if there is none
+     * @return false if this is a conditional update and the stored order is no longer the one that was read
+     */
+    public boolean appliesTo(Order currentOrder) {
+        if (expectedOrder == null || currentOrder == expectedOrder) {
+            return true;
+        }
+        // a day read back from its file holds new Order objects, so compare the fields
+        return currentOrder != null
+                && Objects.equals(currentOrder.getCustomerName(), expectedOrder.getCustomerName())
+                && Objects.equals(currentOrder.getState(), expectedOrder.getState())
+                && Objects.equals(currentOrder.getTaxRate(), expectedOrder.getTaxRate())
+                && Objects.equals(currentOrder.getProductType(), expectedOrder.getProductType())
+                && Objects.equals(currentOrder.getArea(), expectedOrder.getArea())
+                && Objects.equals(currentOrder.getCostPerSquareFoot(), expectedOrder.getCostPerSquareFoot())
+                && Objects.equals(currentOrder.getLaborCostPerSquareFoot(), expectedOrder.getLaborCostPerSquareFoot())
+                && Objects.equals(currentOrder.getMaterialCost(), expectedOrder.getMaterialCost())
+                && Objects.equals(currentOrder.getLaborCost(), expectedOrder.getLaborCost())
+                && Objects.equals(currentOrder.getTax(), expectedOrder.getTax())
+                && Objects.equals(currentOrder.getTotal(), expectedOrder.getTotal());
+    }
+}
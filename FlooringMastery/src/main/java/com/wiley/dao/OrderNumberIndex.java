@@ -0,0 +1,171 @@
+package com.wiley.dao;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent index from order number to the date of its day file, so an order can be
+ * found by its number alone. The index file in the orders folder is append-only:
+ * one "orderNumber,MMddyyyy" line per added order and one "orderNumber,-" line per
+ * removed order, and it is rewritten compactly once it is mostly outdated lines.
+ *
+ * New orders are indexed before their day is written and removed orders after, so
+ * after a crash the index may point at a day that doesn't have the order, never the
+ * other way round; callers check the day they are pointed at.
+ */
+public class OrderNumberIndex {
+    public static final String FILE_NAME = "OrderNumber.idx";
+    private static final String DELIMITER = ",";
+    private static final String REMOVED = "-";
+    // rewrite the file when it has this many more lines than live entries
+    private static final int COMPACTION_SLACK = 1024;
+    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final Path INDEX_FILE_PATH;
+    // null until the file is read or rebuilt
+    private Map<Integer, LocalDate> dates;
+    private int linesInFile;
+
+    public OrderNumberIndex(String ORDER_FOLDER_PATH) {
+        this.INDEX_FILE_PATH = Paths.get(ORDER_FOLDER_PATH, FILE_NAME);
+    }
+
+    /**
+     * @return true once the index is in memory, after {@link #load()} or {@link #rebuild(Map)}
+     */
+    public synchronized boolean isLoaded() {
+        return dates != null;
+    }
+
+    /**
+     * Reads the index file into memory.
+     *
+     * @return false if the file is missing or corrupt and the index has to be rebuilt
+     */
+    public synchronized boolean load() {
+        Map<Integer, LocalDate> loaded = new HashMap<>();
+        int lines = 0;
+        try (BufferedReader in = Files.newBufferedReader(INDEX_FILE_PATH, StandardCharsets.UTF_8)) {
+            String currentLine;
+            while ((currentLine = in.readLine()) != null) {
+                lines++;
+                int delimiter = currentLine.indexOf(DELIMITER);
+                int orderNumber = Integer.parseInt(currentLine.substring(0, delimiter));
+                String date = currentLine.substring(delimiter + 1);
+                if (date.equals(REMOVED)) {
+                    loaded.remove(orderNumber);
+                } else {
+                    loaded.put(orderNumber, LocalDate.parse(date, FORMATTER));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // missing file, or a broken line (e.g. half written during a crash): rebuild from the day files
+            return false;
+        }
+        dates = loaded;
+        linesInFile = lines;
+        return true;
+    }
+
+    /**
+     * Replaces the index with the result of a full scan and writes it compactly.
+     *
+     * @param scannedDates every order number found in the day files and its date
+     * @throws OrderDataPersistenceException if the index file cannot be written
+     */
+    public synchronized void rebuild(Map<Integer, LocalDate> scannedDates) throws OrderDataPersistenceException {
+        dates = new HashMap<>(scannedDates);
+        writeCompact();
+    }
+
+    /**
+     * @param orderNumber the order to find
+     * @return the date of the day file holding the order, null if it isn't indexed
+     */
+    public synchronized LocalDate lookup(int orderNumber) {
+        return dates == null ? null : dates.get(orderNumber);
+    }
+
+    /**
+     * Indexes orders of one date. When the index was never built, nothing is
+     * written: the first lookup will build it from the day files anyway.
+     *
+     * @param orderNumbers the orders that are being added
+     * @param date the date they are added to
+     * @throws OrderDataPersistenceException if the index file cannot be written
+     */
+    public synchronized void put(List<Integer> orderNumbers, LocalDate date) throws OrderDataPersistenceException {
+        if (orderNumbers.isEmpty() || !Files.exists(INDEX_FILE_PATH)) {
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        for (int orderNumber : orderNumbers) {
+            records.append(orderNumber).append(DELIMITER).append(date.format(FORMATTER)).append(System.lineSeparator());
+            if (dates != null) {
+                dates.put(orderNumber, date);
+            }
+        }
+        append(records.toString(), orderNumbers.size());
+    }
+
+    /**
+     * Drops removed orders from the index.
+     *
+     * @param orderNumbers the orders that have been removed
+     * @throws OrderDataPersistenceException if the index file cannot be written
+     */
+    public synchronized void remove(List<Integer> orderNumbers) throws OrderDataPersistenceException {
+        if (orderNumbers.isEmpty() || !Files.exists(INDEX_FILE_PATH)) {
+            return;
+        }
+        StringBuilder records = new StringBuilder();
+        for (int orderNumber : orderNumbers) {
+            records.append(orderNumber).append(DELIMITER).append(REMOVED).append(System.lineSeparator());
+            if (dates != null) {
+                dates.remove(orderNumber);
+            }
+        }
+        append(records.toString(), orderNumbers.size());
+    }
+
+    private void append(String records, int lines) throws OrderDataPersistenceException {
+        try {
+            Files.write(INDEX_FILE_PATH, records.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not write the order number index.", e);
+        }
+        linesInFile += lines;
+        if (dates != null && linesInFile > 2 * dates.size() + COMPACTION_SLACK) {
+            writeCompact();
+        }
+    }
+
+    private void writeCompact() throws OrderDataPersistenceException {
+        // write next to the real file and swap it in, so a crash never leaves half an index
+        Path tempFile = INDEX_FILE_PATH.resolveSibling(FILE_NAME + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Integer, LocalDate> entry : dates.entrySet()) {
+                out.write(entry.getKey() + DELIMITER + entry.getValue().format(FORMATTER));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not write the order number index.", e);
+        }
+        try {
+            try {
+                Files.move(tempFile, INDEX_FILE_PATH,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, INDEX_FILE_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not write the order number index.", e);
+        }
+        linesInFile = dates.size();
+    }
+}
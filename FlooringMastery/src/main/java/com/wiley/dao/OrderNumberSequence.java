@@ -0,0 +1,119 @@
+package com.wiley.dao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+
+/**
+ * High-water mark of the order numbers handed out so far, persisted in a
+ * one line file in the orders folder. Reading it replaces a full scan of every
+ * order file at startup; the scan is only needed when the file is missing or corrupt.
+ *
+ * The file is written a block of numbers ahead: an order number past the mark
+ * reserves it plus a block, so only one add in a block pays for the durable rewrite
+ * of the file. The mark read back is therefore at most a block above the highest
+ * order saved, and a restart may skip up to a block of numbers, never reuse one.
+ * Until the scan has rebuilt a missing sequence, raising it is refused: assuming 0
+ * would persist it below the orders already on disk and hand their numbers out again.
+ */
+public class OrderNumberSequence {
+    public static final String FILE_NAME = "OrderNumber.seq";
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+    private final Path SEQUENCE_FILE_PATH;
+    private final GroupCommitter committer;
+    private final int blockSize;
+    // last value written to or read from the file, -1 if we don't know it yet
+    private int highWaterMark = -1;
+
+    public OrderNumberSequence(String ORDER_FOLDER_PATH) {
+        this(ORDER_FOLDER_PATH, new GroupCommitter(ORDER_FOLDER_PATH));
+    }
+
+    /**
+     * @param ORDER_FOLDER_PATH the orders folder
+     * @param committer the committer of the day files, so the sequence and the day
+     *                  written after it share the forcing of the folder to disk
+     */
+    public OrderNumberSequence(String ORDER_FOLDER_PATH, GroupCommitter committer) {
+        this(ORDER_FOLDER_PATH, committer, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param ORDER_FOLDER_PATH the orders folder
+     * @param committer the committer of the day files
+     * @param blockSize how many numbers to reserve past the one that raised the mark, 0 to write every number
+     */
+    public OrderNumberSequence(String ORDER_FOLDER_PATH, GroupCommitter committer, int blockSize) {
+        this.SEQUENCE_FILE_PATH = Paths.get(ORDER_FOLDER_PATH, FILE_NAME);
+        this.committer = committer;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Reads the persisted high-water mark.
+     *
+     * @return at or up to a block above the highest order number handed out so far,
+     * null if the sequence file is missing or cannot be parsed
+     */
+    public synchronized Integer read() {
+        try {
+            List<String> lines = Files.readAllLines(SEQUENCE_FILE_PATH, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                return null;
+            }
+            int value = Integer.parseInt(lines.get(0).trim());
+            if (value < 0) {
+                return null;
+            }
+            highWaterMark = value;
+            return value;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the high-water mark is known, false if the sequence file is
+     * missing or corrupt and has to be rebuilt with {@link #write(int)}
+     */
+    public synchronized boolean isKnown() {
+        return highWaterMark >= 0 || read() != null;
+    }
+
+    /**
+     * Raises the high-water mark to the given order number plus a block.
+     * Nothing is written if the sequence is already at or above the number.
+     *
+     * @param orderNumber an order number that has just been persisted
+     * @throws OrderDataPersistenceException if the sequence file cannot be written,
+     * or is missing and has not been rebuilt yet
+     */
+    public synchronized void raiseTo(int orderNumber) throws OrderDataPersistenceException {
+        if (!isKnown()) {
+            throw new OrderDataPersistenceException("The order number sequence is missing, it has to be rebuilt from the order files first.");
+        }
+        if (orderNumber > highWaterMark) {
+            write((int) Math.min((long) orderNumber + blockSize, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Overwrites the high-water mark, e.g. after rebuilding it with a full scan.
+     *
+     * @param orderNumber the highest order number found
+     * @throws OrderDataPersistenceException if the sequence file cannot be written
+     */
+    public synchronized void write(int orderNumber) throws OrderDataPersistenceException {
+        // write next to the real file and swap it in, so a crash never leaves a half written number;
+        // the new number is on disk before any order that uses it
+        Path tempFile = GroupCommitter.tempFileFor(SEQUENCE_FILE_PATH);
+        try {
+            Files.write(tempFile, String.valueOf(orderNumber).getBytes(StandardCharsets.UTF_8));
+            committer.commit(tempFile, SEQUENCE_FILE_PATH);
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not save the order number sequence.", e);
+        }
+        highWaterMark = orderNumber;
+    }
+}
@@ -0,0 +1,207 @@
+package com.wiley.dao;
+
+import com.wiley.model.DailyRollup;
+import com.wiley.model.OrderTotals;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one small Orders_MMddyyyy.rollup file per day with the day's totals
+ * (see {@link DailyRollup}), so reports read a handful of lines per day instead of every order.
+ * The order DAOs update a day's rollup after every write to the day: on disk when
+ * the day file is written, only in memory ({@link #keep}) when just the journal grew.
+ *
+ * A rollup, on disk or in memory, carries the size and modification time of the day
+ * file and journal it was computed from. If they don't match any more (a crash between
+ * the day write and the rollup write, or the day file was edited by hand) the rollup
+ * is not used and the DAO computes it again from the orders. For the same reason a
+ * rollup that cannot be written is simply dropped instead of failing the order write.
+ */
+public class OrderRollupStore {
+    public static final String FILE_EXTENSION = ".rollup";
+    // recently used rollups stay in memory, so a busy day isn't read back before every write
+    private static final int MAX_CACHED_ROLLUPS = 366;
+    private static final String DELIMITER = ",";
+    private static final String SOURCE = "Source";
+    private static final String TOTALS = "Totals";
+    private static final String STATE = "State";
+    private static final String PRODUCT_TYPE = "ProductType";
+    private final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
+    private final String ORDER_FOLDER_PATH;
+    private final String DAY_FILE_EXTENSION;
+    private final Map<LocalDate, StampedRollup> rollups = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, StampedRollup> eldest) {
+            return size() > MAX_CACHED_ROLLUPS;
+        }
+    };
+
+    /**
+     * @param ORDER_FOLDER_PATH the folder of the day files, the rollups are kept next to them
+     * @param DAY_FILE_EXTENSION the extension of the day files, e.g. ".txt"
+     */
+    public OrderRollupStore(String ORDER_FOLDER_PATH, String DAY_FILE_EXTENSION) {
+        this.ORDER_FOLDER_PATH = ORDER_FOLDER_PATH;
+        this.DAY_FILE_EXTENSION = DAY_FILE_EXTENSION;
+    }
+
+    /**
+     * @param date the day to read
+     * @return the day's rollup if one was written for the day as it is now, null if it has to be computed
+     */
+    public synchronized DailyRollup read(LocalDate date) {
+        String source;
+        try {
+            source = sourceStamp(date);
+        } catch (IOException e) {
+            rollups.remove(date);
+            return null;
+        }
+        StampedRollup cachedRollup = rollups.get(date);
+        if (cachedRollup != null && cachedRollup.source.equals(source)) {
+            return cachedRollup.rollup;
+        }
+        // the day changed behind our back, the file may still be right if it was written since
+        rollups.remove(date);
+        DailyRollup rollup = readFile(date, source);
+        if (rollup != null) {
+            rollups.put(date, new StampedRollup(rollup, source));
+        }
+        return rollup;
+    }
+
+    /**
+     * Keeps the rollup of a day whose journal was just appended to in memory only.
+     * The rollup file is left as it is: it no longer matches the day, so after a
+     * restart the day is added up again, and it is written once the journal is compacted.
+     *
+     * @param rollup the totals of the day as it is now on disk
+     */
+    public synchronized void keep(DailyRollup rollup) {
+        LocalDate date = rollup.getDate();
+        try {
+            rollups.put(date, new StampedRollup(rollup, sourceStamp(date)));
+        } catch (IOException e) {
+            rollups.remove(date);
+        }
+    }
+
+    /**
+     * Stores the rollup of a day that was just written.
+     *
+     * @param rollup the totals of the day as it is now on disk
+     */
+    public synchronized void write(DailyRollup rollup) {
+        LocalDate date = rollup.getDate();
+        Path file = rollupFile(date);
+        // written next to the real file and swapped in, so a reader never sees half a rollup
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        String source;
+        try {
+            source = sourceStamp(date);
+            try (BufferedWriter out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                out.write(SOURCE + DELIMITER + source);
+                out.newLine();
+                writeLine(out, TOTALS, "", rollup.getTotals());
+                for (Map.Entry<String, OrderTotals> state : rollup.getTotalsByState().entrySet()) {
+                    writeLine(out, STATE, state.getKey(), state.getValue());
+                }
+                for (Map.Entry<String, OrderTotals> product : rollup.getTotalsByProductType().entrySet()) {
+                    writeLine(out, PRODUCT_TYPE, product.getKey(), product.getValue());
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // the old file no longer matches the day, it gets computed again on the next read
+            rollups.remove(date);
+            return;
+        }
+        rollups.put(date, new StampedRollup(rollup, source));
+    }
+
+    private void writeLine(BufferedWriter out, String group, String key, OrderTotals totals) throws IOException {
+        out.write(group + DELIMITER + key + DELIMITER + totals.getOrderCount()
+                + DELIMITER + totals.getMaterialCost() + DELIMITER + totals.getLaborCost()
+                + DELIMITER + totals.getTax() + DELIMITER + totals.getTotal());
+        out.newLine();
+    }
+
+    private DailyRollup readFile(LocalDate date, String source) {
+        DailyRollup rollup = null;
+        try (BufferedReader in = Files.newBufferedReader(rollupFile(date), StandardCharsets.UTF_8)) {
+            String writtenSource = in.readLine();
+            if (writtenSource == null || !writtenSource.equals(SOURCE + DELIMITER + source)) {
+                // written for another version of the day
+                return null;
+            }
+            String currentLine;
+            while ((currentLine = in.readLine()) != null) {
+                String[] fields = currentLine.split(DELIMITER, -1);
+                OrderTotals totals = new OrderTotals(Integer.parseInt(fields[2]), new BigDecimal(fields[3]),
+                        new BigDecimal(fields[4]), new BigDecimal(fields[5]), new BigDecimal(fields[6]));
+                switch (fields[0]) {
+                    case TOTALS:
+                        rollup = new DailyRollup(date, totals);
+                        break;
+                    case STATE:
+                        rollup.putStateTotals(fields[1], totals);
+                        break;
+                    case PRODUCT_TYPE:
+                        rollup.putProductTypeTotals(fields[1], totals);
+                        break;
+                    default:
+                        return null;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // missing or broken file: computed again from the orders
+            return null;
+        }
+        return rollup;
+    }
+
+    // size and modification time of the day file and the journal, "-" for a missing file
+    private String sourceStamp(LocalDate date) throws IOException {
+        String dayName = "Orders_" + date.format(FORMATTER);
+        return fileStamp(Paths.get(ORDER_FOLDER_PATH, dayName + DAY_FILE_EXTENSION))
+                + DELIMITER + fileStamp(Paths.get(ORDER_FOLDER_PATH, dayName + OrderJournal.FILE_EXTENSION));
+    }
+
+    private static String fileStamp(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return "-" + DELIMITER + "-";
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return attributes.size() + DELIMITER + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private Path rollupFile(LocalDate date) {
+        return Paths.get(ORDER_FOLDER_PATH, "Orders_" + date.format(FORMATTER) + FILE_EXTENSION);
+    }
+
+    private static final class StampedRollup {
+        private final DailyRollup rollup;
+        // sourceStamp() of the day when the rollup was stored
+        private final String source;
+
+        private StampedRollup(DailyRollup rollup, String source) {
+            this.rollup = rollup;
+            this.source = source;
+        }
+    }
+}
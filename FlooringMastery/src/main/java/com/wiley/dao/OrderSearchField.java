@@ -0,0 +1,27 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+
+/**
+ * The order fields that can be searched through the secondary indexes.
+ */
+public enum OrderSearchField {
+    CUSTOMER_NAME,
+    STATE,
+    PRODUCT_TYPE;
+
+    /**
+     * @param order the order to read
+     * @return the value of this field in the order
+     */
+    public String valueOf(Order order) {
+        switch (this) {
+            case CUSTOMER_NAME:
+                return order.getCustomerName();
+            case STATE:
+                return order.getState();
+            default:
+                return order.getProductType();
+        }
+    }
+}
@@ -5,45 +5,90 @@ import com.wiley.model.Product;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ProductDaoFileImpl implements ProductDao{
-    //Map<productType, Product>
-    private Map<String, Product> productMap = new HashMap<>();
+    // how long a catalog is served before Products.txt is looked at again
+    public static final long RELOAD_CHECK_INTERVAL_MILLIS = 1000;
+    // the catalog as read from the file, swapped as a whole when the file changes
+    private final ReloadingFile<ProductCatalog> catalog;
     private final String PRODUCT_FILE_PATH;
     public static final String DELIMITER = ",";
 
     public ProductDaoFileImpl() {
-        this.PRODUCT_FILE_PATH = "src/main/SampleFileData/Data/Products.txt";
+        this("src/main/SampleFileData/Data/Products.txt");
     }
 
     public ProductDaoFileImpl(String PRODUCT_FILE_PATH) {
+        this(PRODUCT_FILE_PATH, RELOAD_CHECK_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param PRODUCT_FILE_PATH the product file
+     * @param reloadCheckIntervalMillis how long a catalog is served before the file is checked for changes,
+     *                                  0 to check on every call
+     */
+    public ProductDaoFileImpl(String PRODUCT_FILE_PATH, long reloadCheckIntervalMillis) {
         this.PRODUCT_FILE_PATH = PRODUCT_FILE_PATH;
+        this.catalog = new ReloadingFile<>(Paths.get(PRODUCT_FILE_PATH),
+                version -> new ProductCatalog(version, load()),
+                "-_- Could not load product data into memory.", reloadCheckIntervalMillis);
     }
 
 
+    /**
+     * Immutable view of Products.txt, built once per version of the file
+     * with every lookup the DAO serves already computed.
+     */
+    private static class ProductCatalog {
+        private final long version;
+        private final List<Product> products;
+        //Map<productType, Product>
+        private final Map<String, Product> productMap;
+        private final List<String> productTypes;
+
+        private ProductCatalog(long version, Map<String, Product> productMap) {
+            this.version = version;
+            this.productMap = Collections.unmodifiableMap(productMap);
+            this.products = Collections.unmodifiableList(new ArrayList<>(productMap.values()));
+            this.productTypes = Collections.unmodifiableList(new ArrayList<>(productMap.keySet()));
+        }
+    }
+
     @Override
     public List<Product> getAllProducts() throws OrderDataPersistenceException {
-        load();
-        return new ArrayList<Product>(productMap.values());
+        return currentCatalog().products;
     }
 
     @Override
     public Product getByProductType(String productType) throws OrderDataPersistenceException {
-        load();
-        return productMap.get(productType);
+        return currentCatalog().productMap.get(productType);
     }
 
     @Override
     public List<String> getAllProductTypes() throws OrderDataPersistenceException {
-        return getAllProducts().stream()
-                .map((p) -> p.getProductType())
-                .collect(Collectors.toList());
+        return currentCatalog().productTypes;
+    }
+
+    /**
+     * Returns the version of the catalog currently in use. It goes up by one
+     * every time Products.txt is read again, so callers can tell prices may have changed.
+     *
+     * @return the current catalog version, starting at 1
+     * @throws OrderDataPersistenceException if the product file cannot be read
+     */
+    public long getCatalogVersion() throws OrderDataPersistenceException {
+        return currentCatalog().version;
+    }
+
+    private ProductCatalog currentCatalog() throws OrderDataPersistenceException {
+        return catalog.get();
     }
 
-    private void load() throws OrderDataPersistenceException {
+    private Map<String, Product> load() throws OrderDataPersistenceException {
+        // keeps the order of the file, which is the order products are listed in
+        Map<String, Product> productMap = new LinkedHashMap<>();
         Scanner scanner;
 
         try {
@@ -76,18 +121,19 @@ public class ProductDaoFileImpl implements ProductDao{
         }
 
         scanner.close();
+        return productMap;
     }
 
     private Product unmarshallProduct(String productAsText){
         //file format:
         //ProductType,CostPerSquareFoot,LaborCostPerSquareFoot
-        String[] productTokens = productAsText.split(DELIMITER);
+        CsvLineParser fields = new CsvLineParser(productAsText);
 
         Product productFromFile = new Product();
-        productFromFile.setProductType(productTokens[0]);
-        // since the tokens are String, we can use the big decimal String constructor
-        productFromFile.setCostPerSquareFoot(new BigDecimal(productTokens[1]));
-        productFromFile.setLaborCostPerSquareFoot(new BigDecimal(productTokens[2]));
+        productFromFile.setProductType(fields.nextString());
+        // the costs are parsed straight from the line into big decimals
+        productFromFile.setCostPerSquareFoot(fields.nextDecimal());
+        productFromFile.setLaborCostPerSquareFoot(fields.nextDecimal());
 
         return productFromFile;
     }
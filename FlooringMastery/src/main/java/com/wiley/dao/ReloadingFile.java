@@ -0,0 +1,132 @@
+package com.wiley.dao;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * What was read from a small data file, e.g. Products.txt, read again when the file changes.
+ *
+ * Readers share one immutable value, swapped as a whole on a reload, so they always
+ * see a complete one. The file is stamped (see {@link FileStamp}) at most once per
+ * check interval; in between, {@link #get()} does no I/O at all, so a change to the
+ * file shows up to one interval late. Only one thread reads the file again, the
+ * others keep using the previous value meanwhile.
+ *
+ * Once there is a value, a file that cannot be read (half written, edited into
+ * something unreadable, briefly missing) never fails a reader: the previous value
+ * is served and the file is tried again after the next interval.
+ *
+ * @param <T> the immutable value built from the file
+ */
+final class ReloadingFile<T> {
+
+    /**
+     * Builds the value from the file.
+     *
+     * @param <T> the value built
+     */
+    interface Loader<T> {
+        /**
+         * @param version 1 for the first read of the file, one more for every reload
+         * @return the value as the file is now
+         * @throws OrderDataPersistenceException if the file cannot be read
+         */
+        T load(long version) throws OrderDataPersistenceException;
+    }
+
+    private final Path path;
+    private final Loader<T> loader;
+    private final String errorMessage;
+    private final long checkIntervalNanos;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Snapshot<T> snapshot;
+    // System.nanoTime() after which the file is stamped again
+    private volatile long nextCheckNanos;
+
+    /**
+     * @param path the file to read
+     * @param loader reads the file into the value
+     * @param errorMessage message of the exception thrown when the file cannot be stamped on the first read
+     * @param checkIntervalMillis how long a value is served without looking at the file, 0 to look every time
+     */
+    ReloadingFile(Path path, Loader<T> loader, String errorMessage, long checkIntervalMillis) {
+        this.path = path;
+        this.loader = loader;
+        this.errorMessage = errorMessage;
+        this.checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(checkIntervalMillis);
+    }
+
+    /**
+     * @return the value as of the last read of the file
+     * @throws OrderDataPersistenceException if the file cannot be read and there is no value yet
+     */
+    T get() throws OrderDataPersistenceException {
+        Snapshot<T> current = snapshot;
+        if (current != null && System.nanoTime() - nextCheckNanos < 0) {
+            return current.value;
+        }
+
+        FileStamp fileStamp;
+        try {
+            fileStamp = FileStamp.of(path);
+        } catch (IOException e) {
+            if (current == null) {
+                throw new OrderDataPersistenceException(errorMessage, e);
+            }
+            nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+            return current.value;
+        }
+        if (current != null && !current.fileStamp.isChangedIn(fileStamp)) {
+            nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+            return current.value;
+        }
+
+        if (current == null) {
+            // nothing to fall back on yet, wait for the first load
+            reloadLock.lock();
+        } else if (!reloadLock.tryLock()) {
+            // another thread is already reloading, keep reading the previous value
+            return current.value;
+        }
+        try {
+            // the thread we waited for may have just loaded it
+            Snapshot<T> latest = snapshot;
+            if (latest != current && latest != null) {
+                return latest.value;
+            }
+            long version = current == null ? 1 : current.version + 1;
+            T value;
+            try {
+                value = loader.load(version);
+            } catch (OrderDataPersistenceException | RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+                // keep the last good value and the old stamp, so the file is read again next interval
+                nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+                return current.value;
+            }
+            Snapshot<T> reloaded = new Snapshot<>(value, version, fileStamp);
+            snapshot = reloaded;
+            nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+            return reloaded.value;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static final class Snapshot<T> {
+        private final T value;
+        private final long version;
+        // taken before the file was read, so a write during the read is seen next time
+        private final FileStamp fileStamp;
+
+        private Snapshot(T value, long version, FileStamp fileStamp) {
+            this.value = value;
+            this.version = version;
+            this.fileStamp = fileStamp;
+        }
+    }
+}
@@ -5,39 +5,55 @@ import com.wiley.model.Tax;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.Set;
+import java.nio.file.Paths;
+import java.util.*;
 
 public class TaxDaoFileImpl implements TaxDao{
-    //Map<state_abbrev, Tax>
-    private Map<String, Tax> taxMap = new HashMap<>();
+    // how long a tax table is served before Taxes.txt is looked at again
+    public static final long RELOAD_CHECK_INTERVAL_MILLIS = 1000;
+    // the tax table as read from the file, Map<state_abbrev, Tax>, swapped as a whole
+    // when the file changes so readers always see one complete table, never a half reloaded one
+    private final ReloadingFile<Map<String, Tax>> taxes;
     private final String TAX_FILE_PATH;
     public static final String DELIMITER = ",";
 
     public TaxDaoFileImpl() {
-        TAX_FILE_PATH = "src/main/SampleFileData/Data/Taxes.txt";
+        this("src/main/SampleFileData/Data/Taxes.txt");
     }
 
     public TaxDaoFileImpl(String TAX_FILE_PATH) {
+        this(TAX_FILE_PATH, RELOAD_CHECK_INTERVAL_MILLIS);
+    }
+
+    /**
+     * @param TAX_FILE_PATH the tax file
+     * @param reloadCheckIntervalMillis how long a tax table is served before the file is checked for changes,
+     *                                  0 to check on every call
+     */
+    public TaxDaoFileImpl(String TAX_FILE_PATH, long reloadCheckIntervalMillis) {
         this.TAX_FILE_PATH = TAX_FILE_PATH;
+        this.taxes = new ReloadingFile<>(Paths.get(TAX_FILE_PATH),
+                version -> Collections.unmodifiableMap(load()),
+                "-_- Could not load tax data into memory.", reloadCheckIntervalMillis);
     }
 
     @Override
     public Tax geByStateAbbreviation(String taxAbbreviation) throws OrderDataPersistenceException {
-        load();
-        return taxMap.get(taxAbbreviation);
+        return currentTaxes().get(taxAbbreviation);
     }
 
     @Override
     public Set<String> getAllStates() throws OrderDataPersistenceException {
-        load();
-        return taxMap.keySet();
+        return currentTaxes().keySet();
+    }
+
+    private Map<String, Tax> currentTaxes() throws OrderDataPersistenceException {
+        return taxes.get();
     }
 
-    private void load() throws OrderDataPersistenceException {
+    private Map<String, Tax> load() throws OrderDataPersistenceException {
+        // a fresh map every time, so states deleted from the file disappear
+        Map<String, Tax> taxMap = new HashMap<>();
         Scanner scanner;
 
         try {
@@ -69,17 +85,18 @@ public class TaxDaoFileImpl implements TaxDao{
         }
 
         scanner.close();
+        return taxMap;
     }
     private Tax unmarshallTax(String taxAsText){
         // format is:
         // state_abbrev,state_name,tax_value
-        String[] taxTokens = taxAsText.split(DELIMITER);
+        CsvLineParser fields = new CsvLineParser(taxAsText);
 
         Tax taxFromFile = new Tax();
-        taxFromFile.setStateAbbreviation(taxTokens[0]);
-        taxFromFile.setStateName(taxTokens[1]);
-        //tax_value is a string so we can easily create a Big Decimal with a String
-        taxFromFile.setTaxRate(new BigDecimal(taxTokens[2]));
+        taxFromFile.setStateAbbreviation(fields.nextString());
+        taxFromFile.setStateName(fields.nextString());
+        //tax_value is parsed straight from the line into a Big Decimal
+        taxFromFile.setTaxRate(fields.nextDecimal());
 
         return taxFromFile;
     }
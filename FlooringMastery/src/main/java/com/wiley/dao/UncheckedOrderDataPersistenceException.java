@@ -0,0 +1,16 @@
+package com.wiley.dao;
+
+/**
+ * Wraps an OrderDataPersistenceException where a checked exception cannot be thrown,
+ * e.g. while a Stream of orders reads its day files.
+ */
+public class UncheckedOrderDataPersistenceException extends RuntimeException {
+    public UncheckedOrderDataPersistenceException(OrderDataPersistenceException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized OrderDataPersistenceException getCause() {
+        return (OrderDataPersistenceException) super.getCause();
+    }
+}
@@ -0,0 +1,162 @@
+package com.wiley.dao;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A snapshot of the write-behind of {@link OrderDaoFileImpl}: how many acknowledged
+ * mutations are still waiting to be written into their day files, how long
+ * acknowledging a mutation and writing a day take, and whether writing days fails.
+ */
+public class WriteBehindMetrics {
+    private final long queueDepth;
+    private final int pendingDays;
+    private final long acknowledgedMutations;
+    private final Duration averageAcknowledgeLatency;
+    private final long commits;
+    private final long committedMutations;
+    private final Duration averageCommitLatency;
+    private final Duration maxCommitLatency;
+    private final long failedCommits;
+    private final OrderDataPersistenceException lastFailure;
+
+    public WriteBehindMetrics(long queueDepth, int pendingDays,
+                              long acknowledgedMutations, Duration averageAcknowledgeLatency,
+                              long commits, long committedMutations,
+                              Duration averageCommitLatency, Duration maxCommitLatency,
+                              long failedCommits, OrderDataPersistenceException lastFailure) {
+        this.queueDepth = queueDepth;
+        this.pendingDays = pendingDays;
+        this.acknowledgedMutations = acknowledgedMutations;
+        this.averageAcknowledgeLatency = averageAcknowledgeLatency;
+        this.commits = commits;
+        this.committedMutations = committedMutations;
+        this.averageCommitLatency = averageCommitLatency;
+        this.maxCommitLatency = maxCommitLatency;
+        this.failedCommits = failedCommits;
+        this.lastFailure = lastFailure;
+    }
+
+    /**
+     * @return mutations that are in the journals but not in their day files yet
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @return days that have mutations waiting to be written
+     */
+    public int getPendingDays() {
+        return pendingDays;
+    }
+
+    /**
+     * @return mutations acknowledged so far, i.e. applied in memory and appended to the journal
+     */
+    public long getAcknowledgedMutations() {
+        return acknowledgedMutations;
+    }
+
+    /**
+     * @return average time of a journal append, what a caller waits for a mutation
+     */
+    public Duration getAverageAcknowledgeLatency() {
+        return averageAcknowledgeLatency;
+    }
+
+    /**
+     * @return day files the writer rewrote so far
+     */
+    public long getCommits() {
+        return commits;
+    }
+
+    /**
+     * @return mutations written into day files so far, more than one per commit when they were coalesced
+     */
+    public long getCommittedMutations() {
+        return committedMutations;
+    }
+
+    /**
+     * @return average time the writer took to rewrite a day file
+     */
+    public Duration getAverageCommitLatency() {
+        return averageCommitLatency;
+    }
+
+    public Duration getMaxCommitLatency() {
+        return maxCommitLatency;
+    }
+
+    /**
+     * @return day file writes that failed, their mutations stayed in the journal
+     */
+    public long getFailedCommits() {
+        return failedCommits;
+    }
+
+    /**
+     * @return why the most recent failed day file write failed, null if none failed
+     */
+    public OrderDataPersistenceException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Collects the timings of the write-behind from many threads at once.
+     */
+    static final class Recorder {
+        private final LongAdder acknowledgedMutations = new LongAdder();
+        private final LongAdder acknowledges = new LongAdder();
+        private final LongAdder acknowledgeNanos = new LongAdder();
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder committedMutations = new LongAdder();
+        private final LongAdder commitNanos = new LongAdder();
+        private final LongAccumulator maxCommitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder failedCommits = new LongAdder();
+        private volatile OrderDataPersistenceException lastFailure;
+
+        void recordAcknowledge(int mutations, long nanos) {
+            acknowledgedMutations.add(mutations);
+            acknowledges.increment();
+            acknowledgeNanos.add(nanos);
+        }
+
+        void recordCommit(int mutations, long nanos) {
+            commits.increment();
+            committedMutations.add(mutations);
+            commitNanos.add(nanos);
+            maxCommitNanos.accumulate(nanos);
+        }
+
+        void recordFailure(OrderDataPersistenceException e) {
+            failedCommits.increment();
+            lastFailure = e;
+        }
+
+        WriteBehindMetrics snapshot(long queueDepth, int pendingDays) {
+            long commitCount = commits.sum();
+            return new WriteBehindMetrics(queueDepth, pendingDays,
+                    acknowledgedMutations.sum(), average(acknowledgeNanos.sum(), acknowledges.sum()),
+                    commitCount, committedMutations.sum(),
+                    average(commitNanos.sum(), commitCount), Duration.ofNanos(maxCommitNanos.get()),
+                    failedCommits.sum(), lastFailure);
+        }
+
+        private static Duration average(long nanos, long count) {
+            return count == 0 ? Duration.ZERO : Duration.ofNanos(nanos / count);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "queue depth " + queueDepth + " mutations on " + pendingDays + " days"
+                + ", acknowledged " + acknowledgedMutations + " (avg " + averageAcknowledgeLatency.toMillis() + " ms)"
+                + ", committed " + committedMutations + " in " + commits + " day writes"
+                + " (avg " + averageCommitLatency.toMillis() + " ms, max " + maxCommitLatency.toMillis() + " ms)"
+                + (failedCommits == 0 ? "" : ", " + failedCommits + " failed, last: " + lastFailure.getMessage());
+    }
+}
@@ -0,0 +1,114 @@
+package com.wiley.model;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The totals of one day's orders: all of them, per state and per product type.
+ * A state or product without orders left on the day has no entry.
+ */
+public class DailyRollup {
+    private final LocalDate date;
+    private final OrderTotals totals;
+    private final SortedMap<String, OrderTotals> byState = new TreeMap<>();
+    private final SortedMap<String, OrderTotals> byProductType = new TreeMap<>();
+
+    public DailyRollup(LocalDate date) {
+        this(date, new OrderTotals());
+    }
+
+    public DailyRollup(LocalDate date, OrderTotals totals) {
+        this.date = date;
+        this.totals = totals;
+    }
+
+    public DailyRollup(DailyRollup other) {
+        this(other.date, new OrderTotals(other.totals));
+        other.byState.forEach((state, stateTotals) -> byState.put(state, new OrderTotals(stateTotals)));
+        other.byProductType.forEach((product, productTotals) -> byProductType.put(product, new OrderTotals(productTotals)));
+    }
+
+    public void add(Order order) {
+        totals.add(order);
+        byState.computeIfAbsent(order.getState(), state -> new OrderTotals()).add(order);
+        byProductType.computeIfAbsent(order.getProductType(), product -> new OrderTotals()).add(order);
+    }
+
+    public void subtract(Order order) {
+        totals.subtract(order);
+        subtract(byState, order.getState(), order);
+        subtract(byProductType, order.getProductType(), order);
+    }
+
+    private static void subtract(Map<String, OrderTotals> group, String key, Order order) {
+        OrderTotals groupTotals = group.get(key);
+        if (groupTotals == null) {
+            return;
+        }
+        groupTotals.subtract(order);
+        if (groupTotals.getOrderCount() <= 0) {
+            group.remove(key);
+        }
+    }
+
+    /**
+     * Replaces one order with another, either of which may be null for an add or a remove.
+     */
+    public void replace(Order previousOrder, Order newOrder) {
+        if (previousOrder != null) {
+            subtract(previousOrder);
+        }
+        if (newOrder != null) {
+            add(newOrder);
+        }
+    }
+
+    public void putStateTotals(String state, OrderTotals stateTotals) {
+        byState.put(state, stateTotals);
+    }
+
+    public void putProductTypeTotals(String productType, OrderTotals productTotals) {
+        byProductType.put(productType, productTotals);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public OrderTotals getTotals() {
+        return totals;
+    }
+
+    public SortedMap<String, OrderTotals> getTotalsByState() {
+        return Collections.unmodifiableSortedMap(byState);
+    }
+
+    public SortedMap<String, OrderTotals> getTotalsByProductType() {
+        return Collections.unmodifiableSortedMap(byProductType);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DailyRollup)) return false;
+        DailyRollup that = (DailyRollup) o;
+        return Objects.equals(date, that.date)
+                && totals.equals(that.totals)
+                && byState.equals(that.byState)
+                && byProductType.equals(that.byProductType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, totals, byState, byProductType);
+    }
+
+    @Override
+    public String toString() {
+        return date + ": " + totals + ", by state " + byState + ", by product " + byProductType;
+    }
+}
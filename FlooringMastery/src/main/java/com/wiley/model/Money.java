@@ -0,0 +1,50 @@
+package com.wiley.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between BigDecimal amounts and whole numbers of cents (hundredths) in a long.
+ * The pricing code works on the cents (see PricingCalculator), the conversions are for
+ * the edges of the program (files, orders, the view), which keep using BigDecimal.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+    private static final int MAX_DIGITS = 16;
+
+    private Money() {
+    }
+
+    /**
+     * Tells whether an amount converts to cents without rounding or overflow,
+     * i.e. it has at most two decimals and fits a long once scaled.
+     *
+     * @param amount the amount to check
+     * @return true if {@link #centsOf(BigDecimal)} returns the exact amount
+     */
+    public static boolean isRepresentable(BigDecimal amount) {
+        int scale = amount.scale();
+        // 16 digits times 100 still fits a long
+        return scale >= 0 && scale <= SCALE && amount.precision() <= MAX_DIGITS;
+    }
+
+    /**
+     * @param amount the amount to convert, with at most two decimals
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount has more than two decimals or is too big
+     */
+    public static long centsOf(BigDecimal amount) {
+        if (!isRepresentable(amount)) {
+            throw new ArithmeticException("Not a whole number of cents: " + amount);
+        }
+        // a whole number of cents at scale 0, read straight from its long without a BigInteger
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * @param cents an amount in cents
+     * @return the amount as a BigDecimal with two decimals, e.g. 12345 gives 123.45
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
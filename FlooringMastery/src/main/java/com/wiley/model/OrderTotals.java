@@ -0,0 +1,93 @@
+package com.wiley.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Number of orders and their material cost, labor cost, tax and total added up.
+ * Orders can be taken out again, so the totals of a day can follow every add,
+ * edit and remove without going back to the orders.
+ */
+public class OrderTotals {
+    private int orderCount;
+    private BigDecimal materialCost = BigDecimal.ZERO;
+    private BigDecimal laborCost = BigDecimal.ZERO;
+    private BigDecimal tax = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public OrderTotals() {
+    }
+
+    public OrderTotals(int orderCount, BigDecimal materialCost, BigDecimal laborCost, BigDecimal tax, BigDecimal total) {
+        this.orderCount = orderCount;
+        this.materialCost = materialCost;
+        this.laborCost = laborCost;
+        this.tax = tax;
+        this.total = total;
+    }
+
+    public OrderTotals(OrderTotals other) {
+        this(other.orderCount, other.materialCost, other.laborCost, other.tax, other.total);
+    }
+
+    public void add(Order order) {
+        orderCount++;
+        materialCost = materialCost.add(order.getMaterialCost());
+        laborCost = laborCost.add(order.getLaborCost());
+        tax = tax.add(order.getTax());
+        total = total.add(order.getTotal());
+    }
+
+    public void subtract(Order order) {
+        orderCount--;
+        materialCost = materialCost.subtract(order.getMaterialCost());
+        laborCost = laborCost.subtract(order.getLaborCost());
+        tax = tax.subtract(order.getTax());
+        total = total.subtract(order.getTotal());
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getMaterialCost() {
+        return materialCost;
+    }
+
+    public BigDecimal getLaborCost() {
+        return laborCost;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OrderTotals)) return false;
+        OrderTotals that = (OrderTotals) o;
+        // 10.5 and 10.50 are the same amount, whatever order the orders were added in
+        return orderCount == that.orderCount
+                && materialCost.compareTo(that.materialCost) == 0
+                && laborCost.compareTo(that.laborCost) == 0
+                && tax.compareTo(that.tax) == 0
+                && total.compareTo(that.total) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(orderCount, materialCost.stripTrailingZeros(), laborCost.stripTrailingZeros(),
+                tax.stripTrailingZeros(), total.stripTrailingZeros());
+    }
+
+    @Override
+    public String toString() {
+        return orderCount + " orders, material " + materialCost + ", labor " + laborCost
+                + ", tax " + tax + ", total " + total;
+    }
+}
@@ -1,6 +1,10 @@
 package com.wiley.service;
 
 import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.dao.OrderMutation;
+import com.wiley.dao.OrderSearchField;
+import com.wiley.dao.UncheckedOrderDataPersistenceException;
+import com.wiley.model.DailyRollup;
 import com.wiley.model.Order;
 import com.wiley.model.Product;
 import com.wiley.model.Tax;
@@ -9,6 +13,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * FlooringService defines the business logic for managing flooring orders,
@@ -20,12 +25,15 @@ public interface FlooringService {
      * This method is to be called once when the service is created
      * In the case of already existing order files in the folder,
      * this method will iterate through all of them and retrieve the
-     * maximum orderNumber present and assign it to the class attribute
+     * maximum orderNumber present and assign it to the class attribute.
+     * Only the first call does this, so every session sharing the service
+     * may call it without resetting numbers other sessions already use.
      *
      */
     void init();
     /**
-     * Retrieves the current maximum order ID in the system.
+     * Retrieves the current maximum order ID in the system,
+     * including IDs leased to threads but not handed out yet.
      *
      * @return the highest order ID
      */
@@ -62,6 +70,7 @@ public interface FlooringService {
     //ORDER DAO
     /**
      * Creates a new order and assigns it a unique order number.
+     * Safe to call from several threads at once.
      *
      * @return the newly created order object
      */
@@ -74,6 +83,18 @@ public interface FlooringService {
      * @throws OrderDataPersistenceException if there is an error retrieving the data
      */
     List<Order> getAllOrdersForDate(LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Streams all orders between two dates, both included, by date and then order number.
+     * The stream is parallel and reads the days on several threads as it is consumed;
+     * use forEachOrdered() or collect() to keep the order.
+     *
+     * @param from the first date
+     * @param to the last date
+     * @return the orders of the range
+     * @throws OrderDataPersistenceException if the stored dates cannot be listed
+     * @throws UncheckedOrderDataPersistenceException while consuming, if a day cannot be read
+     */
+    Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException;
     /**
      * Adds a new order for a given date.
      *
@@ -101,6 +122,16 @@ public interface FlooringService {
      * @throws OrderDataPersistenceException if the order cannot be found or removed
      */
     Order removeOrder(int orderNumber, LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Applies many adds, edits and removes to the orders of one date at once,
+     * writing the day only once.
+     *
+     * @param date the date associated with the orders
+     * @param mutations the changes to apply, in order
+     * @return for each mutation, the order it replaced or removed, null if none
+     * @throws OrderDataPersistenceException if there is an error during data persistence
+     */
+    List<Order> applyOrderBatch(LocalDate date, List<OrderMutation> mutations) throws OrderDataPersistenceException;
     /**
      * Retrieves a specific order by order number and date.
      *
@@ -110,11 +141,79 @@ public interface FlooringService {
      * @throws OrderDataPersistenceException if the order is not found
      */
     Order getOrder(int orderNumber, LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Retrieves a specific order by its order number alone.
+     *
+     * @param orderNumber the number of the order to retrieve
+     * @return the retrieved order object, with its date
+     * @throws OrderDataPersistenceException if the order is not found
+     */
+    Order getOrder(int orderNumber) throws OrderDataPersistenceException;
+    /**
+     * Finds every order, on any date, with the given customer name, state or product type.
+     *
+     * @param field the field to search
+     * @param value the value to look for, any case
+     * @return the matching orders, by date and then order number, empty if none
+     * @throws OrderDataPersistenceException if the orders cannot be read
+     */
+    List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException;
+    /**
+     * Retrieves the material cost, labor cost, tax and revenue of one day,
+     * overall, per state and per product type, without reading the day's orders.
+     *
+     * @param date the day to report on
+     * @return the day's totals, with no orders if there are none on that date
+     * @throws OrderDataPersistenceException if the orders cannot be read
+     */
+    DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException;
     /**
      * Exports all order data across all dates into a single file or external system.
      * Useful for backups or generating comprehensive reports.
      */
     void exportAllData() throws OrderDataPersistenceException;
+    /**
+     * Prices every row of a batch: material cost, labor cost, tax and total, with
+     * exactly the rounding of the per order calculate methods. Big batches are
+     * split into ranges that are priced in parallel.
+     *
+     * @param batch the inputs to price, the outputs are written back into it
+     * @throws ArithmeticException if an amount does not fit the batch's long cents
+     */
+    void priceBatch(PricingBatch batch);
+    /**
+     * Re-quotes every order of a date at the current tax rates and product prices,
+     * e.g. after Taxes.txt or Products.txt changed. Orders whose state or product
+     * no longer exists keep their quote. The day is written once. An order that is
+     * edited or removed while the day is being re-quoted keeps that edit.
+     *
+     * @param date the date of the orders to re-quote
+     * @return the number of orders whose quote changed
+     * @throws OrderDataPersistenceException if the orders cannot be read or saved
+     */
+    int requoteDay(LocalDate date) throws OrderDataPersistenceException;
+    /**
+     * Re-quotes the orders of every date from the given date on, see {@link #requoteDay(LocalDate)}.
+     * Several days are re-quoted in parallel.
+     *
+     * @param fromDate the first date to re-quote, e.g. today for the open orders
+     * @return the number of orders whose quote changed
+     * @throws OrderDataPersistenceException if the orders cannot be read or saved
+     */
+    int requoteAll(LocalDate fromDate) throws OrderDataPersistenceException;
+    /**
+     * Imports raw orders from a CSV file with the header
+     * Date,CustomerName,State,ProductType,Area (dates in MMddyyyy format).
+     * Every line is validated and priced like an order entered by hand, except
+     * that past dates are allowed so historical orders can be migrated.
+     * Valid orders are grouped by date and each day is written once per batch.
+     *
+     * @param filePath the CSV file to import
+     * @param batchSize how many orders to collect before writing them
+     * @return the number of imported orders and the reasons lines were rejected
+     * @throws OrderDataPersistenceException if the file cannot be read or the orders cannot be saved
+     */
+    OrderImportResult importOrders(String filePath, int batchSize) throws OrderDataPersistenceException;
 
     //VALIDATION
     /**
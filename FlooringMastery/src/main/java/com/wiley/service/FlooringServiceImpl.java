@@ -2,66 +2,118 @@ package com.wiley.service;
 
 import com.wiley.dao.OrderDao;
 import com.wiley.dao.OrderDataPersistenceException;
+import com.wiley.dao.OrderMutation;
+import com.wiley.dao.OrderSearchField;
 import com.wiley.dao.ProductDao;
 import com.wiley.dao.TaxDao;
+import com.wiley.dao.UncheckedOrderDataPersistenceException;
+import com.wiley.model.DailyRollup;
+import com.wiley.model.Money;
 import com.wiley.model.Order;
 import com.wiley.model.Product;
 import com.wiley.model.Tax;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class FlooringServiceImpl implements FlooringService{
-    private int maxId;
+    // hands out order numbers safely when several input threads share the service
+    private final OrderNumberAllocator orderNumberAllocator;
     private static final int SCALE = 2;
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+    // rows priced by one task of a parallel batch, big enough to outweigh the scheduling
+    private static final int PRICING_CHUNK_SIZE = 8192;
+    private final DateTimeFormatter IMPORT_DATE_FORMATTER = DateTimeFormatter.ofPattern("MMddyyyy");
     private OrderDao orderDao;
     private ProductDao productDao;
     private TaxDao taxDao;
+    private boolean initialized = false;
 
     public FlooringServiceImpl(
             OrderDao orderDao,
             ProductDao productDao,
             TaxDao taxDao) {
+        this(orderDao, productDao, taxDao, 1);
+    }
+
+    public FlooringServiceImpl(
+            OrderDao orderDao,
+            ProductDao productDao,
+            TaxDao taxDao,
+            int orderNumberBlockSize) {
         this.orderDao = orderDao;
         this.productDao = productDao;
         this.taxDao = taxDao;
+        this.orderNumberAllocator = new OrderNumberAllocator(orderNumberBlockSize);
     }
 
     @Override
     public int getMaxId() {
-        return maxId;
+        return orderNumberAllocator.getHighestReserved();
     }
 
     @Override
-    public void init() {
+    public synchronized void init() {
+        if (initialized) {
+            // another session started the numbering already, a reset would hand its numbers out again
+            return;
+        }
         try {
-            this.maxId = orderDao.getMaxOrderNumber();
+            orderNumberAllocator.reset(orderDao.getMaxOrderNumber());
         } catch (OrderDataPersistenceException e){
-            this.maxId = 0;
+            orderNumberAllocator.reset(0);
         }
+        initialized = true;
     }
 
+    // the calculations run on long cents when every input has at most two decimals
+    // (all prices, rates and stored amounts do), otherwise and on overflow on BigDecimal;
+    // both give the same HALF_UP result
+
     @Override
     public BigDecimal calculateMaterialCost(Order order){
-        return order.getArea()
-                .multiply(order.getCostPerSquareFoot())
-                .setScale(SCALE, ROUNDING_MODE);
+        return calculateCost(order.getArea(), order.getCostPerSquareFoot());
     }
 
     @Override
     public BigDecimal calculateLaborCost(Order order) {
-        return order.getArea()
-                .multiply(order.getLaborCostPerSquareFoot())
+        return calculateCost(order.getArea(), order.getLaborCostPerSquareFoot());
+    }
+
+    private BigDecimal calculateCost(BigDecimal area, BigDecimal costPerSquareFoot) {
+        if (Money.isRepresentable(area) && Money.isRepresentable(costPerSquareFoot)) {
+            try {
+                return Money.toBigDecimal(PricingCalculator.costCents(
+                        Money.centsOf(area), Money.centsOf(costPerSquareFoot)));
+            } catch (ArithmeticException e) {
+                // too big for a long, use BigDecimal below
+            }
+        }
+        return area
+                .multiply(costPerSquareFoot)
                 .setScale(SCALE, ROUNDING_MODE);
     }
 
     @Override
     public BigDecimal calculateTax(Order order) {
+        if (Money.isRepresentable(order.getMaterialCost()) && Money.isRepresentable(order.getLaborCost())
+                && Money.isRepresentable(order.getTaxRate())) {
+            try {
+                return Money.toBigDecimal(PricingCalculator.taxCents(Money.centsOf(order.getMaterialCost()),
+                        Money.centsOf(order.getLaborCost()), Money.centsOf(order.getTaxRate())));
+            } catch (ArithmeticException e) {
+                // too big for a long, use BigDecimal below
+            }
+        }
         BigDecimal costs = order.getMaterialCost().add(order.getLaborCost());
         // even though tax rates are supposedly stored as whole numbers and the tax calc. shows that fact,
         //the sample files show the actual tax rate saved, but in the calculations they have used the whole number
@@ -72,20 +124,178 @@ public class FlooringServiceImpl implements FlooringService{
 
     @Override
     public BigDecimal calculateTotal(Order order) {
-        return order.getMaterialCost().add(order.getLaborCost()).add(order.getTax());
+        BigDecimal materialCost = order.getMaterialCost();
+        BigDecimal laborCost = order.getLaborCost();
+        BigDecimal tax = order.getTax();
+        // a BigDecimal sum keeps the largest scale of its parts, so cents only match it
+        // when at least one part has two decimals
+        int maxScale = Math.max(materialCost.scale(), Math.max(laborCost.scale(), tax.scale()));
+        if (maxScale == SCALE && Money.isRepresentable(materialCost) && Money.isRepresentable(laborCost)
+                && Money.isRepresentable(tax)) {
+            try {
+                return Money.toBigDecimal(PricingCalculator.totalCents(
+                        Money.centsOf(materialCost), Money.centsOf(laborCost), Money.centsOf(tax)));
+            } catch (ArithmeticException e) {
+                // too big for a long, use BigDecimal below
+            }
+        }
+        return materialCost.add(laborCost).add(tax);
+    }
+
+
+    @Override
+    public void priceBatch(PricingBatch batch) {
+        int size = batch.size();
+        int chunks = (size + PRICING_CHUNK_SIZE - 1) / PRICING_CHUNK_SIZE;
+        if (chunks <= 1) {
+            batch.price(0, size);
+            return;
+        }
+        // the chunks write to disjoint ranges of the output arrays, so they need no locking
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+                batch.price(chunk * PRICING_CHUNK_SIZE, Math.min(size, (chunk + 1) * PRICING_CHUNK_SIZE)));
+    }
+
+    @Override
+    public int requoteDay(LocalDate date) throws OrderDataPersistenceException {
+        // copies at the current prices: the orders of the day may be shared with the dao's cache
+        List<Order> batchOrders = new ArrayList<>();
+        List<Order> otherOrders = new ArrayList<>();
+        Map<Integer, Order> previousOrders = new HashMap<>();
+        for (Order order : orderDao.getAllOrdersByDay(date)) {
+            Tax tax = taxDao.geByStateAbbreviation(order.getState());
+            Product product = productDao.getByProductType(order.getProductType());
+            if (tax == null || product == null) {
+                continue;
+            }
+            Order requoted = copyOf(order);
+            requoted.setTaxRate(tax.getTaxRate());
+            requoted.setCostPerSquareFoot(product.getCostPerSquareFoot());
+            requoted.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+            previousOrders.put(order.getOrderNumber(), order);
+            if (Money.isRepresentable(requoted.getArea()) && Money.isRepresentable(requoted.getTaxRate())
+                    && Money.isRepresentable(requoted.getCostPerSquareFoot())
+                    && Money.isRepresentable(requoted.getLaborCostPerSquareFoot())) {
+                batchOrders.add(requoted);
+            } else {
+                otherOrders.add(requoted);
+            }
+        }
+
+        PricingBatch batch = new PricingBatch(batchOrders.size());
+        for (int row = 0; row < batchOrders.size(); row++) {
+            Order order = batchOrders.get(row);
+            batch.set(row, Money.centsOf(order.getArea()), Money.centsOf(order.getCostPerSquareFoot()),
+                    Money.centsOf(order.getLaborCostPerSquareFoot()), Money.centsOf(order.getTaxRate()));
+        }
+        try {
+            priceBatch(batch);
+            for (int row = 0; row < batchOrders.size(); row++) {
+                Order order = batchOrders.get(row);
+                order.setMaterialCost(Money.toBigDecimal(batch.getMaterialCostCents(row)));
+                order.setLaborCost(Money.toBigDecimal(batch.getLaborCostCents(row)));
+                order.setTax(Money.toBigDecimal(batch.getTaxCents(row)));
+                order.setTotal(Money.toBigDecimal(batch.getTotalCents(row)));
+            }
+        } catch (ArithmeticException e) {
+            // some amount is too big for long cents, price the whole day one order at a time
+            otherOrders.addAll(batchOrders);
+        }
+        for (Order order : otherOrders) {
+            order.setMaterialCost(calculateMaterialCost(order));
+            order.setLaborCost(calculateLaborCost(order));
+            order.setTax(calculateTax(order));
+            order.setTotal(calculateTotal(order));
+        }
+
+        // only write the orders whose quote actually changed, and only if nobody edited
+        // or removed them since we read the day, their edit wins over our re-quote
+        List<OrderMutation> updates = new ArrayList<>();
+        for (List<Order> requotedOrders : List.of(batchOrders, otherOrders)) {
+            for (Order order : requotedOrders) {
+                Order previousOrder = previousOrders.get(order.getOrderNumber());
+                if (!isSameQuote(previousOrder, order)) {
+                    updates.add(OrderMutation.updateIfUnchanged(previousOrder, order));
+                }
+            }
+        }
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int requoted = 0;
+        for (Order replacedOrder : orderDao.applyBatch(date, updates)) {
+            if (replacedOrder != null) {
+                requoted++;
+            }
+        }
+        return requoted;
+    }
+
+    @Override
+    public int requoteAll(LocalDate fromDate) throws OrderDataPersistenceException {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date : orderDao.getAllOrderDates()) {
+            if (!date.isBefore(fromDate)) {
+                dates.add(date);
+            }
+        }
+        // a day is far smaller than a pricing chunk, so the days are what runs in parallel:
+        // each one is read, priced and written on its own thread, under its own day lock in the dao
+        try {
+            return dates.parallelStream().mapToInt(date -> {
+                try {
+                    return requoteDay(date);
+                } catch (OrderDataPersistenceException e) {
+                    throw new UncheckedOrderDataPersistenceException(e);
+                }
+            }).sum();
+        } catch (UncheckedOrderDataPersistenceException e) {
+            throw e.getCause();
+        }
     }
 
+    private static Order copyOf(Order order) {
+        Order copy = new Order(order.getOrderNumber());
+        copy.setDate(order.getDate());
+        copy.setCustomerName(order.getCustomerName());
+        copy.setState(order.getState());
+        copy.setTaxRate(order.getTaxRate());
+        copy.setProductType(order.getProductType());
+        copy.setArea(order.getArea());
+        copy.setCostPerSquareFoot(order.getCostPerSquareFoot());
+        copy.setLaborCostPerSquareFoot(order.getLaborCostPerSquareFoot());
+        copy.setMaterialCost(order.getMaterialCost());
+        copy.setLaborCost(order.getLaborCost());
+        copy.setTax(order.getTax());
+        copy.setTotal(order.getTotal());
+        return copy;
+    }
+
+    private static boolean isSameQuote(Order previous, Order requoted) {
+        // equals, not compareTo: 4.5 and 4.50 are written differently to the file
+        return Objects.equals(previous.getTaxRate(), requoted.getTaxRate())
+                && Objects.equals(previous.getCostPerSquareFoot(), requoted.getCostPerSquareFoot())
+                && Objects.equals(previous.getLaborCostPerSquareFoot(), requoted.getLaborCostPerSquareFoot())
+                && Objects.equals(previous.getMaterialCost(), requoted.getMaterialCost())
+                && Objects.equals(previous.getLaborCost(), requoted.getLaborCost())
+                && Objects.equals(previous.getTax(), requoted.getTax())
+                && Objects.equals(previous.getTotal(), requoted.getTotal());
+    }
 
     @Override
     public List<Order> getAllOrdersForDate(LocalDate date) throws OrderDataPersistenceException {
         return orderDao.getAllOrdersByDay(date);
     }
 
+    @Override
+    public Stream<Order> getOrdersInRange(LocalDate from, LocalDate to) throws OrderDataPersistenceException {
+        return orderDao.getOrdersInRange(from, to);
+    }
+
     @Override
     public Order createOrderAndAssignOrderNumber(){
-        //increment the maxId and assign it
-        this.maxId++;
-        return new Order(getMaxId());
+        //atomically take the next order number and assign it
+        return new Order(orderNumberAllocator.next());
     }
 
     @Override
@@ -103,6 +313,99 @@ public class FlooringServiceImpl implements FlooringService{
         orderDao.exportAll();
     }
 
+    @Override
+    public OrderImportResult importOrders(String filePath, int batchSize) throws OrderDataPersistenceException {
+        OrderImportResult result = new OrderImportResult();
+        //Map<date, orders of that date waiting to be written>, sorted so days are written in order
+        Map<LocalDate, List<Order>> batch = new TreeMap<>();
+        int ordersInBatch = 0;
+
+        try (BufferedReader in = new BufferedReader(new FileReader(filePath))) {
+            // skip the first header line
+            String currentLine = in.readLine();
+            int lineNumber = 1;
+            while ((currentLine = in.readLine()) != null) {
+                lineNumber++;
+                if (currentLine.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    Order order = createImportedOrder(currentLine);
+                    batch.computeIfAbsent(order.getDate(), date -> new ArrayList<>()).add(order);
+                    ordersInBatch++;
+                } catch (OrderInformationInvalidException | TaxInformationInvalidException
+                         | ProductInformationInvalidException e) {
+                    result.addRejectedLine(lineNumber, e.getMessage());
+                }
+
+                if (ordersInBatch >= batchSize) {
+                    saveImportBatch(batch, result);
+                    ordersInBatch = 0;
+                }
+            }
+        } catch (IOException e) {
+            throw new OrderDataPersistenceException("Could not read the import file.", e);
+        }
+        saveImportBatch(batch, result);
+        return result;
+    }
+
+    private Order createImportedOrder(String orderAsText) throws OrderDataPersistenceException,
+            OrderInformationInvalidException, TaxInformationInvalidException, ProductInformationInvalidException {
+        //file format:
+        //Date,CustomerName,State,ProductType,Area
+        String[] orderTokens = orderAsText.split(",");
+        if (orderTokens.length != 5) {
+            throw new OrderInformationInvalidException("Expected 5 fields: Date,CustomerName,State,ProductType,Area.");
+        }
+        LocalDate date;
+        BigDecimal area;
+        try {
+            date = LocalDate.parse(orderTokens[0].trim(), IMPORT_DATE_FORMATTER);
+            area = new BigDecimal(orderTokens[4].trim());
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new OrderInformationInvalidException("Invalid date or area.", e);
+        }
+        String customerName = orderTokens[1].trim();
+        String state = orderTokens[2].trim();
+        String productType = orderTokens[3].trim();
+
+        // same checks as the add order flow, except that past dates are fine for a migration
+        validateCustomerNameInformation(customerName);
+        validateStateInformation(state);
+        validateAreaInformation(area);
+        Product product = productDao.getByProductType(productType);
+        if (product == null) {
+            throw new ProductInformationInvalidException("Unknown product type: " + productType);
+        }
+        Tax tax = taxDao.geByStateAbbreviation(state);
+
+        Order order = createOrderAndAssignOrderNumber();
+        order.setDate(date);
+        order.setCustomerName(customerName);
+        order.setState(state);
+        order.setTaxRate(tax.getTaxRate());
+        order.setProductType(productType);
+        order.setArea(area);
+        order.setCostPerSquareFoot(product.getCostPerSquareFoot());
+        order.setLaborCostPerSquareFoot(product.getLaborCostPerSquareFoot());
+        order.setMaterialCost(calculateMaterialCost(order));
+        order.setLaborCost(calculateLaborCost(order));
+        order.setTax(calculateTax(order));
+        order.setTotal(calculateTotal(order));
+        return order;
+    }
+
+    private void saveImportBatch(Map<LocalDate, List<Order>> batch, OrderImportResult result)
+            throws OrderDataPersistenceException {
+        // one write per day in the batch, however many orders it holds
+        for (Map.Entry<LocalDate, List<Order>> day : batch.entrySet()) {
+            orderDao.addOrders(day.getValue(), day.getKey());
+            result.addImported(day.getValue().size());
+        }
+        batch.clear();
+    }
+
     @Override
     public boolean validateDateInformation(LocalDate date) throws OrderInformationInvalidException {
         // only check left is if date is in the future
@@ -143,12 +446,32 @@ public class FlooringServiceImpl implements FlooringService{
         return orderDao.removeOrder(orderNumber,date);
     }
 
+    @Override
+    public List<Order> applyOrderBatch(LocalDate date, List<OrderMutation> mutations) throws OrderDataPersistenceException {
+        return orderDao.applyBatch(date, mutations);
+    }
+
     @Override
     public Order getOrder(int orderNumber, LocalDate date) throws
             OrderDataPersistenceException {
         return orderDao.getByOrderAndDate(orderNumber, date);
     }
 
+    @Override
+    public Order getOrder(int orderNumber) throws OrderDataPersistenceException {
+        return orderDao.getByOrderNumber(orderNumber);
+    }
+
+    @Override
+    public List<Order> findOrders(OrderSearchField field, String value) throws OrderDataPersistenceException {
+        return orderDao.findOrders(field, value);
+    }
+
+    @Override
+    public DailyRollup getDailyRollup(LocalDate date) throws OrderDataPersistenceException {
+        return orderDao.getDailyRollup(date);
+    }
+
     @Override
     public Tax geByStateAbbreviation(String taxAbbreviation) throws OrderDataPersistenceException {
         return taxDao.geByStateAbbreviation(taxAbbreviation);
@@ -0,0 +1,33 @@
+package com.wiley.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a bulk order import: how many orders were saved
+ * and why the other lines of the file were rejected.
+ */
+public class OrderImportResult {
+    private int importedCount = 0;
+    private final List<String> rejectedLines = new ArrayList<>();
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public void addImported(int count) {
+        importedCount += count;
+    }
+
+    /**
+     * @return one message per rejected line, with its line number and the reason
+     */
+    public List<String> getRejectedLines() {
+        return Collections.unmodifiableList(rejectedLines);
+    }
+
+    public void addRejectedLine(int lineNumber, String reason) {
+        rejectedLines.add("Line " + lineNumber + ": " + reason);
+    }
+}
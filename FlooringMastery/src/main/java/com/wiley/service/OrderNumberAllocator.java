@@ -0,0 +1,70 @@
+package com.wiley.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe source of new order numbers.
+ * With a block size of 1 every call takes the next number from one shared
+ * atomic counter. With a bigger block size each thread leases a whole range
+ * of numbers at once and hands them out without touching the shared counter,
+ * so concurrent clerks don't contend on it. The price is that numbers are no
+ * longer handed out in strict global order and unused numbers of a lease are skipped.
+ */
+public class OrderNumberAllocator {
+    private final int blockSize;
+    // highest order number reserved so far, either handed out or leased to a thread
+    private final AtomicInteger highestReserved = new AtomicInteger(0);
+    // bumped on reset() so leases taken before it are thrown away
+    private volatile int generation = 0;
+    private final ThreadLocal<Lease> leases = ThreadLocal.withInitial(Lease::new);
+
+    private static class Lease {
+        int generation = -1;
+        int next;
+        int end;
+    }
+
+    /**
+     * @param blockSize how many order numbers a thread leases at once, 1 for no leasing
+     */
+    public OrderNumberAllocator(int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be at least 1.");
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Restarts the sequence right after the given order number.
+     *
+     * @param maxOrderNumber the highest order number already in use
+     */
+    public synchronized void reset(int maxOrderNumber) {
+        highestReserved.set(maxOrderNumber);
+        generation++;
+    }
+
+    /**
+     * @return a new order number, never handed out before by this allocator
+     */
+    public int next() {
+        if (blockSize == 1) {
+            return highestReserved.incrementAndGet();
+        }
+        Lease lease = leases.get();
+        if (lease.generation != generation || lease.next >= lease.end) {
+            // lease a new block: (previous highest, previous highest + blockSize]
+            lease.generation = generation;
+            lease.end = highestReserved.addAndGet(blockSize) + 1;
+            lease.next = lease.end - blockSize;
+        }
+        return lease.next++;
+    }
+
+    /**
+     * @return the highest order number handed out or leased so far
+     */
+    public int getHighestReserved() {
+        return highestReserved.get();
+    }
+}
@@ -0,0 +1,103 @@
+package com.wiley.service;
+
+/**
+ * The prices of many orders, stored column by column in long arrays of hundredths
+ * (see {@link PricingCalculator}) instead of one Order object with eight BigDecimals each.
+ * Fill in the inputs of every row, hand the batch to
+ * {@link FlooringService#priceBatch(PricingBatch)} and read the outputs back.
+ * Pricing a range of rows is a plain loop over the arrays that allocates nothing.
+ */
+public class PricingBatch {
+    // inputs
+    private final long[] areaHundredths;
+    private final long[] costPerSquareFootCents;
+    private final long[] laborCostPerSquareFootCents;
+    private final long[] taxRateHundredths;
+    // outputs
+    private final long[] materialCostCents;
+    private final long[] laborCostCents;
+    private final long[] taxCents;
+    private final long[] totalCents;
+
+    public PricingBatch(int size) {
+        areaHundredths = new long[size];
+        costPerSquareFootCents = new long[size];
+        laborCostPerSquareFootCents = new long[size];
+        taxRateHundredths = new long[size];
+        materialCostCents = new long[size];
+        laborCostCents = new long[size];
+        taxCents = new long[size];
+        totalCents = new long[size];
+    }
+
+    public int size() {
+        return areaHundredths.length;
+    }
+
+    /**
+     * Sets the inputs of one row.
+     *
+     * @param row the row to set
+     * @param areaHundredths the area in hundredths of a square foot
+     * @param costPerSquareFootCents the material cost of one square foot in cents
+     * @param laborCostPerSquareFootCents the labor cost of one square foot in cents
+     * @param taxRateHundredths the tax rate in hundredths of a percent
+     */
+    public void set(int row, long areaHundredths, long costPerSquareFootCents,
+                    long laborCostPerSquareFootCents, long taxRateHundredths) {
+        this.areaHundredths[row] = areaHundredths;
+        this.costPerSquareFootCents[row] = costPerSquareFootCents;
+        this.laborCostPerSquareFootCents[row] = laborCostPerSquareFootCents;
+        this.taxRateHundredths[row] = taxRateHundredths;
+    }
+
+    /**
+     * Prices the rows from (inclusive) to (exclusive). Different ranges of the
+     * same batch can be priced by different threads at the same time.
+     *
+     * @throws ArithmeticException if an amount of the range overflows a long
+     */
+    public void price(int from, int to) {
+        for (int row = from; row < to; row++) {
+            long material = PricingCalculator.costCents(areaHundredths[row], costPerSquareFootCents[row]);
+            long labor = PricingCalculator.costCents(areaHundredths[row], laborCostPerSquareFootCents[row]);
+            long tax = PricingCalculator.taxCents(material, labor, taxRateHundredths[row]);
+            materialCostCents[row] = material;
+            laborCostCents[row] = labor;
+            taxCents[row] = tax;
+            totalCents[row] = PricingCalculator.totalCents(material, labor, tax);
+        }
+    }
+
+    public long getAreaHundredths(int row) {
+        return areaHundredths[row];
+    }
+
+    public long getCostPerSquareFootCents(int row) {
+        return costPerSquareFootCents[row];
+    }
+
+    public long getLaborCostPerSquareFootCents(int row) {
+        return laborCostPerSquareFootCents[row];
+    }
+
+    public long getTaxRateHundredths(int row) {
+        return taxRateHundredths[row];
+    }
+
+    public long getMaterialCostCents(int row) {
+        return materialCostCents[row];
+    }
+
+    public long getLaborCostCents(int row) {
+        return laborCostCents[row];
+    }
+
+    public long getTaxCents(int row) {
+        return taxCents[row];
+    }
+
+    public long getTotalCents(int row) {
+        return totalCents[row];
+    }
+}
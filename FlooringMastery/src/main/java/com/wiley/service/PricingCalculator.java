@@ -0,0 +1,67 @@
+package com.wiley.service;
+
+/**
+ * The order price formulas on fixed-point longs: every amount, area and rate is a
+ * whole number of hundredths (249.00 sq.ft is 24900, a 25.00% tax rate is 2500).
+ * Products of two hundredths values are rounded back to hundredths HALF_UP, which
+ * gives exactly the results of the BigDecimal formulas in {@link FlooringServiceImpl}
+ * for inputs with at most two decimals, without allocating anything.
+ * Every method throws ArithmeticException instead of overflowing.
+ */
+public final class PricingCalculator {
+    private static final long HUNDRED = 100;
+
+    private PricingCalculator() {
+    }
+
+    /**
+     * Material or labor cost: area times cost per square foot.
+     *
+     * @param areaHundredths the area in hundredths of a square foot
+     * @param costPerSquareFootCents the cost of one square foot in cents
+     * @return the cost in cents
+     */
+    public static long costCents(long areaHundredths, long costPerSquareFootCents) {
+        return roundHalfUp(Math.multiplyExact(areaHundredths, costPerSquareFootCents), HUNDRED);
+    }
+
+    /**
+     * Tax on material and labor, at the tax rate rounded to a whole percent.
+     *
+     * @param materialCostCents the material cost in cents
+     * @param laborCostCents the labor cost in cents
+     * @param taxRateHundredths the tax rate in hundredths of a percent
+     * @return the tax in cents
+     */
+    public static long taxCents(long materialCostCents, long laborCostCents, long taxRateHundredths) {
+        long costs = Math.addExact(materialCostCents, laborCostCents);
+        // a whole percent is also the percentage in hundredths: 25% is 0.25
+        long wholePercent = roundHalfUp(taxRateHundredths, HUNDRED);
+        return roundHalfUp(Math.multiplyExact(costs, wholePercent), HUNDRED);
+    }
+
+    /**
+     * @return material, labor and tax added up, in cents
+     */
+    public static long totalCents(long materialCostCents, long laborCostCents, long taxCents) {
+        return Math.addExact(Math.addExact(materialCostCents, laborCostCents), taxCents);
+    }
+
+    /**
+     * Divides and rounds to the nearest whole number, halves away from zero,
+     * like RoundingMode.HALF_UP.
+     *
+     * @param value the value to divide
+     * @param divisor a positive divisor
+     * @return the rounded quotient
+     */
+    public static long roundHalfUp(long value, long divisor) {
+        long quotient = value / divisor;
+        long remainder = value % divisor;
+        // compare the remainder with half the divisor without computing remainder * 2
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder)) {
+            quotient += value < 0 ? -1 : 1;
+        }
+        return quotient;
+    }
+}
@@ -2,6 +2,7 @@ package com.wiley.view;
 
 import com.wiley.model.Order;
 import com.wiley.model.Product;
+import com.wiley.service.OrderImportResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -25,12 +26,13 @@ public class FlooringView {
         io.print("* 3. Edit an Order");
         io.print("* 4. Remove an Order");
         io.print("* 5. Export All Data");
-        io.print("* 6. Quit");
+        io.print("* 6. Import Orders");
+        io.print("* 7. Quit");
         io.print("*");
         io.print("* * * * * * * * * * * * * * * * * * * * * * * * * * * * *");
 
         return io.readInt("Please select from the"
-                + " above choices.", 1, 6);
+                + " above choices.", 1, 7);
     }
     public void printProductList(List<String> products){
         io.print("Current available products: ");
@@ -257,6 +259,26 @@ public class FlooringView {
         io.print("Backup saved successfully.");
     }
 
+    public void importOrdersBanner(){
+
+        io.print("=== IMPORT ORDERS ===");
+    }
+
+    public String askImportFilePath() {
+        return io.readString("* Enter the path of the CSV file to import: ");
+    }
+
+    public void displayImportResult(OrderImportResult result) {
+        io.print(result.getImportedCount() + " order(s) imported.");
+        if (!result.getRejectedLines().isEmpty()) {
+            io.print(result.getRejectedLines().size() + " line(s) rejected:");
+            for (String rejectedLine : result.getRejectedLines()) {
+                io.print(rejectedLine);
+            }
+        }
+        io.print("");
+    }
+
     public void displayOrder(Order order){
         io.print(formatOrderInfo(order));
     }
@@ -0,0 +1,117 @@
+package com.wiley.view;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.Scanner;
+
+/**
+ * Reads and writes lines on any pair of streams, e.g. the console or a network connection.
+ * When the input ends, the read methods throw a NoSuchElementException.
+ */
+public class UserIOStreamImpl implements UserIO {
+    private final Scanner sc;
+    private final PrintStream out;
+
+    public UserIOStreamImpl(InputStream in, PrintStream out) {
+        this.sc = new Scanner(in);
+        this.out = out;
+    }
+
+    public UserIOStreamImpl(InputStream in, OutputStream out, Charset charset) {
+        this.sc = new Scanner(in, charset);
+        // flushed on every line, so the other side sees each prompt before we wait for the answer
+        this.out = new PrintStream(out, true, charset);
+    }
+
+    @Override
+    public void print(String message){
+        out.println(message);
+    }
+
+    @Override
+    public String readString(String prompt) {
+        out.println(prompt);
+        String stringInput = sc.nextLine();
+
+        return stringInput;
+    }
+
+    @Override
+    public int readInt(String prompt) {
+        out.println(prompt);
+        int intInput = Integer.parseInt(sc.nextLine());
+
+        return intInput;
+    }
+
+    @Override
+    public int readInt(String prompt, int min, int max) {
+        int intInput = 0;
+        do {
+            out.println(prompt);
+            intInput = Integer.parseInt(sc.nextLine());
+        }while(intInput < min || intInput > max);
+
+        return intInput;
+    }
+
+    @Override
+    public double readDouble(String prompt) {
+        out.println(prompt);
+        double doubleInput = Double.parseDouble(sc.nextLine());
+
+        return doubleInput;
+    }
+
+    @Override
+    public double readDouble(String prompt, double min, double max) {
+        double doubleInput = 0.0;
+        do {
+            out.println(prompt);
+            doubleInput = Double.parseDouble(sc.nextLine());
+        }while(doubleInput < min || doubleInput > max);
+
+        return doubleInput;
+    }
+
+    @Override
+    public float readFloat(String prompt) {
+        out.println(prompt);
+        float floatInput = Float.parseFloat(sc.nextLine());
+
+        return floatInput;
+    }
+
+    @Override
+    public float readFloat(String prompt, float min, float max) {
+        float floatInput = 0;
+        do {
+            out.println(prompt);
+            floatInput = Float.parseFloat(sc.nextLine());
+        }while(floatInput < min || floatInput > max);
+
+        return floatInput;
+    }
+
+    @Override
+    public long readLong(String prompt) {
+        out.println(prompt);
+        long longInput = Long.parseLong(sc.nextLine());
+
+        return longInput;
+    }
+
+    @Override
+    public long readLong(String prompt, long min, long max) {
+        long longInput = 0;
+        do {
+            out.println(prompt);
+            longInput = Long.parseLong(sc.nextLine());
+
+        } while (longInput < min || longInput > max);
+
+        return longInput;
+    }
+}
@@ -0,0 +1,157 @@
+package com.wiley.controller;
+
+import com.wiley.dao.OrderDaoStubImpl;
+import com.wiley.dao.ProductDaoStubImpl;
+import com.wiley.dao.TaxDaoStubImpl;
+import com.wiley.model.Order;
+import com.wiley.service.FlooringServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlooringSessionServerTest {
+    FlooringSessionServer server;
+    Thread serverThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FlooringSessionServer(
+                new FlooringServiceImpl(new OrderDaoStubImpl(), new ProductDaoStubImpl(), new TaxDaoStubImpl()), 0);
+        serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                // the test fails on its own when nothing answers
+            }
+        });
+        serverThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        serverThread.join(10_000);
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static BufferedReader readerOf(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    // reads lines until the given one, false if the session ended first
+    private static boolean readUntil(BufferedReader in, String expectedLine) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(expectedLine)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void awaitSessionCount(int count) throws InterruptedException {
+        // a session leaves the count just after its socket is closed
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (server.getSessionCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getSessionCount());
+    }
+
+    @Test
+    void testEverySessionGetsItsOwnMenu() throws Exception {
+        try (Socket first = connect(); Socket second = connect()) {
+            //Arrange: both sessions print their menu
+            BufferedReader firstIn = readerOf(first);
+            BufferedReader secondIn = readerOf(second);
+            assertNotNull(firstIn.readLine());
+            assertNotNull(secondIn.readLine());
+            assertEquals(2, server.getSessionCount());
+
+            //Act
+            first.getOutputStream().write("7\n".getBytes(StandardCharsets.UTF_8));
+            first.getOutputStream().flush();
+
+            //Assert: the first session says good bye and hangs up, the second one is untouched
+            assertTrue(readUntil(firstIn, "Good Bye!!!"));
+            assertNull(firstIn.readLine());
+            awaitSessionCount(1);
+
+            second.getOutputStream().write("7\n".getBytes(StandardCharsets.UTF_8));
+            second.getOutputStream().flush();
+            assertTrue(readUntil(secondIn, "Good Bye!!!"));
+            awaitSessionCount(0);
+        }
+    }
+
+    @Test
+    void testCloseHangsUpOpenSessions() throws Exception {
+        try (Socket first = connect(); Socket second = connect()) {
+            //Arrange
+            BufferedReader firstIn = readerOf(first);
+            BufferedReader secondIn = readerOf(second);
+            assertNotNull(firstIn.readLine());
+            assertNotNull(secondIn.readLine());
+
+            //Act
+            server.close();
+
+            //Assert
+            assertFalse(readUntil(firstIn, "Good Bye!!!"), "the session ends without the menu exit");
+            assertFalse(readUntil(secondIn, "Good Bye!!!"));
+            assertEquals(0, server.getSessionCount(), "close() waits for the sessions to end");
+        }
+    }
+
+    @Test
+    void testUnexpectedFailureOfACommandKeepsTheSessionGoing() throws Exception {
+        //Arrange: a day that cannot be listed because of a bug, not a file problem
+        FlooringSessionServer failingServer = new FlooringSessionServer(new FlooringServiceImpl(new OrderDaoStubImpl() {
+            @Override
+            public List<Order> getAllOrdersByDay(LocalDate date) {
+                throw new IllegalArgumentException("no orders for you");
+            }
+        }, new ProductDaoStubImpl(), new TaxDaoStubImpl()), 0);
+        Thread failingServerThread = new Thread(() -> {
+            try {
+                failingServer.serve();
+            } catch (IOException e) {
+                // the test fails on its own when nothing answers
+            }
+        });
+        failingServerThread.start();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), failingServer.getPort())) {
+            socket.setSoTimeout(10_000);
+            BufferedReader in = readerOf(socket);
+
+            //Act: display the orders of a day, then exit
+            socket.getOutputStream().write("1\n03072025\n7\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            //Assert: the terminal is told, and the menu still answers the exit
+            assertTrue(readUntil(in, "=== ERROR ==="));
+            assertTrue(in.readLine().contains("no orders for you"));
+            assertTrue(readUntil(in, "Good Bye!!!"), "the session went on after the failed command");
+        } finally {
+            failingServer.close();
+            failingServerThread.join(10_000);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.wiley.controller;
+
+import com.wiley.dao.OrderDaoStubImpl;
+import com.wiley.dao.ProductDaoStubImpl;
+import com.wiley.dao.TaxDaoStubImpl;
+import com.wiley.model.Order;
+import com.wiley.service.FlooringServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLineProtocolTest {
+    private static final String STUB_ORDER_LINE =
+            "1|03072025|Lada Lovelace|CA|25.00|Tile|249.00|3.50|4.15|871.50|1033.35|476.21|2381.06\n";
+    OrderLineProtocol protocol;
+
+    @BeforeEach
+    void setUp() {
+        protocol = protocolOver(new OrderDaoStubImpl());
+    }
+
+    private static OrderLineProtocol protocolOver(OrderDaoStubImpl orderDao) {
+        FlooringServiceImpl service = new FlooringServiceImpl(orderDao, new ProductDaoStubImpl(), new TaxDaoStubImpl());
+        service.init();
+        return new OrderLineProtocol(service);
+    }
+
+    @Test
+    void testGetAnswersTheOrderLine() {
+        assertEquals("OK|" + STUB_ORDER_LINE, protocol.handle("GET|03072025|1"));
+    }
+
+    @Test
+    void testGetUnknownOrderIsAnError() {
+        assertEquals("ERR|No such order found.\n", protocol.handle("GET|03072025|2"));
+        assertEquals("ERR|No such order found.\n", protocol.handle("GET|03082025|1"));
+    }
+
+    @Test
+    void testMalformedRequestsAreErrors() {
+        assertEquals("ERR|Dates are written MMddyyyy.\n", protocol.handle("GET|2025-03-07|1"));
+        assertEquals("ERR|GET takes 2 fields.\n", protocol.handle("GET|03072025"));
+        assertEquals("ERR|Unknown command: FETCH\n", protocol.handle("FETCH|03072025|1"));
+        assertTrue(protocol.handle("GET|03072025|one").startsWith("ERR|Not a number"));
+    }
+
+    @Test
+    void testListAnswersTheCountAndTheOrders() {
+        assertEquals("OK|1\n" + STUB_ORDER_LINE, protocol.handle("LIST|03072025"));
+        assertEquals("OK|0\n", protocol.handle("LIST|03082025"));
+    }
+
+    @Test
+    void testAddPricesTheOrder() {
+        //Arrange
+        String date = LocalDate.now().plusDays(1).format(DateTimeFormatter.ofPattern("MMddyyyy"));
+
+        //Act
+        String response = protocol.handle("ADD|" + date + "|Ada Lovelace|CA|Wood|100");
+
+        //Assert
+        assertEquals("OK|2|" + date + "|Ada Lovelace|CA|25.00|Wood|100|5.15|4.75|515.00|475.00|247.50|1237.50\n", response,
+                "the next number after the stub order, 100 * 5.15 + 100 * 4.75 plus 25% tax");
+    }
+
+    @Test
+    void testAddInThePastIsRejected() {
+        assertTrue(protocol.handle("ADD|03072025|Ada Lovelace|CA|Wood|100").startsWith("ERR|"));
+    }
+
+    @Test
+    void testEditOfTheNameKeepsTheAmounts() {
+        assertEquals("OK|" + STUB_ORDER_LINE.replace("Lada", "Ada"), protocol.handle("EDIT|03072025|1|Ada Lovelace|||"));
+        assertEquals("OK|" + STUB_ORDER_LINE.replace("Lada", "Ada"), protocol.handle("GET|03072025|1"));
+    }
+
+    @Test
+    void testEditOfAnOrderRemovedMeanwhileIsAnError() {
+        //Arrange: the order is still there when it is read, but gone when it is written
+        OrderLineProtocol removedMeanwhile = protocolOver(new OrderDaoStubImpl() {
+            @Override
+            public Order updateOrder(int orderNumber, LocalDate date, Order newOrder) {
+                return null;
+            }
+        });
+
+        //Act
+        String response = removedMeanwhile.handle("EDIT|03072025|1|Ada Lovelace|||");
+
+        //Assert
+        assertEquals("ERR|No such order found.\n", response);
+    }
+
+    @Test
+    void testRemoveAnswersTheRemovedOrder() {
+        assertEquals("OK|" + STUB_ORDER_LINE, protocol.handle("REMOVE|03072025|1"));
+        assertEquals("ERR|No such order found.\n", protocol.handle("REMOVE|03072025|2"));
+    }
+
+    @Test
+    void testQuitSaysBye() {
+        assertEquals("BYE\n", protocol.handle("QUIT"));
+        assertTrue(OrderLineProtocol.isQuit("QUIT"));
+        assertFalse(OrderLineProtocol.isQuit("GET|03072025|1"));
+    }
+
+    @Test
+    void testQuitWithFieldsSaysByeAndQuits() {
+        assertEquals("BYE\n", protocol.handle("QUIT|now"));
+        assertTrue(OrderLineProtocol.isQuit("QUIT|now"), "every BYE ends the connection");
+        assertTrue(OrderLineProtocol.isQuit(" QUIT "));
+        assertFalse(OrderLineProtocol.isQuit("QUITS"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.wiley.controller;
+
+import com.wiley.dao.OrderDaoStubImpl;
+import com.wiley.dao.ProductDaoStubImpl;
+import com.wiley.dao.TaxDaoStubImpl;
+import com.wiley.service.FlooringServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLineServerTest {
+    OrderLineServer server;
+    Thread serverThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new OrderLineServer(
+                new FlooringServiceImpl(new OrderDaoStubImpl(), new ProductDaoStubImpl(), new TaxDaoStubImpl()), 0, 2);
+        serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                // the test fails on its own when nothing answers
+            }
+        });
+        serverThread.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.close();
+        serverThread.join(10_000);
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static BufferedReader readerOf(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPipelinedRequestsAreAnsweredInOrder() throws Exception {
+        try (Socket socket = connect()) {
+            //Arrange
+            StringBuilder requests = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                requests.append(i % 2 == 0 ? "GET|03072025|1\n" : "GET|03072025|" + (i + 1) + "\r\n");
+            }
+
+            //Act: everything in one write, before reading any answer
+            socket.getOutputStream().write(requests.toString().getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            //Assert
+            BufferedReader in = readerOf(socket);
+            for (int i = 0; i < 100; i++) {
+                String response = in.readLine();
+                if (i % 2 == 0) {
+                    assertTrue(response.startsWith("OK|1|03072025|"), "answer " + i + " was " + response);
+                } else {
+                    assertEquals("ERR|No such order found.", response, "answer " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testQuitAnswersTheRequestsBeforeItAndHangsUp() throws Exception {
+        try (Socket socket = connect()) {
+            //Act: nothing after QUIT is answered
+            socket.getOutputStream().write("GET|03072025|1\nQUIT\nGET|03072025|1\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            //Assert
+            BufferedReader in = readerOf(socket);
+            assertTrue(in.readLine().startsWith("OK|1|"));
+            assertEquals("BYE", in.readLine());
+            assertNull(in.readLine(), "the server hangs up after BYE");
+        }
+    }
+
+    @Test
+    void testQuitWithFieldsHangsUp() throws Exception {
+        try (Socket socket = connect()) {
+            //Act
+            socket.getOutputStream().write("QUIT|now\nGET|03072025|1\n".getBytes(StandardCharsets.UTF_8));
+            socket.getOutputStream().flush();
+
+            //Assert
+            BufferedReader in = readerOf(socket);
+            assertEquals("BYE", in.readLine());
+            assertNull(in.readLine(), "the server hangs up after every BYE");
+        }
+    }
+
+    @Test
+    void testOverLongLineHangsUp() throws Exception {
+        try (Socket socket = connect()) {
+            //Arrange
+            byte[] line = new byte[10_000];
+            Arrays.fill(line, (byte) 'A');
+
+            //Act
+            OutputStream out = socket.getOutputStream();
+            out.write(line);
+            out.flush();
+
+            //Assert: hung up without an answer, the reset may come before or instead of the end of stream
+            try {
+                assertNull(readerOf(socket).readLine());
+            } catch (IOException e) {
+                // connection reset
+            }
+        }
+    }
+
+    @Test
+    void testCloseHangsUpOpenConnections() throws Exception {
+        try (Socket first = connect(); Socket second = connect()) {
+            //Arrange: one answer each, so both connections are accepted
+            first.getOutputStream().write("GET|03072025|1\n".getBytes(StandardCharsets.UTF_8));
+            second.getOutputStream().write("GET|03072025|1\n".getBytes(StandardCharsets.UTF_8));
+            BufferedReader firstIn = readerOf(first);
+            BufferedReader secondIn = readerOf(second);
+            assertNotNull(firstIn.readLine());
+            assertNotNull(secondIn.readLine());
+            assertEquals(2, server.getConnectionCount());
+
+            //Act
+            server.close();
+
+            //Assert
+            assertNull(firstIn.readLine());
+            assertNull(secondIn.readLine());
+            assertEquals(0, server.getConnectionCount());
+        }
+    }
+}
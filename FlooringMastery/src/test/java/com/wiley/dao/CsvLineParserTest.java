@@ -0,0 +1,54 @@
+package com.wiley.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvLineParserTest {
+
+    @Test
+    void testReadsOrderLine() {
+        CsvLineParser fields = new CsvLineParser("1,Ada Lovelace,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06");
+
+        assertEquals(1, fields.nextInt());
+        assertEquals("Ada Lovelace", fields.nextString());
+        assertEquals("CA", fields.nextString());
+        assertEquals(new BigDecimal("25.00"), fields.nextDecimal());
+        fields.skip();
+        assertEquals(new BigDecimal("249.00"), fields.nextDecimal());
+    }
+
+    @Test
+    void testDecimalsMatchBigDecimalStringConstructor() {
+        //same value and same scale, so equals() holds and toString() writes the file back unchanged
+        String[] decimals = {"0", "4.45", "9.25", "-3.50", "+7", "100", "5.", ".5", "0.000",
+                "123456789012345678.9", "1E+3", "12345678901234567890.12"};
+        for (String decimal : decimals) {
+            BigDecimal parsed = new CsvLineParser(decimal).nextDecimal();
+            assertEquals(new BigDecimal(decimal), parsed, decimal);
+            assertEquals(new BigDecimal(decimal).toString(), parsed.toString(), decimal);
+        }
+    }
+
+    @Test
+    void testRejectsInvalidNumbers() {
+        assertThrows(NumberFormatException.class, () -> new CsvLineParser("").nextDecimal());
+        assertThrows(NumberFormatException.class, () -> new CsvLineParser("12a").nextDecimal());
+        assertThrows(NumberFormatException.class, () -> new CsvLineParser("").nextInt());
+        assertThrows(NumberFormatException.class, () -> new CsvLineParser("2147483648").nextInt());
+        assertEquals(Integer.MIN_VALUE, new CsvLineParser("-2147483648").nextInt());
+    }
+
+    @Test
+    void testReadsLineInsideBuffer() {
+        String buffer = "header\nTX,Texas,4.45\n";
+        CsvLineParser fields = new CsvLineParser().reset(buffer, 7, buffer.length() - 1);
+
+        assertEquals("TX", fields.nextString());
+        assertEquals("Texas", fields.nextString());
+        assertEquals(new BigDecimal("4.45"), fields.nextDecimal());
+        assertFalse(fields.hasNext());
+    }
+}
@@ -0,0 +1,116 @@
+package com.wiley.dao;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitterTest {
+    private static final String TEST_FOLDER = "src/test/TestCommitData";
+    private GroupCommitter committer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(Paths.get(TEST_FOLDER));
+        committer = new GroupCommitter(TEST_FOLDER);
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] files = new File(TEST_FOLDER).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(TEST_FOLDER).delete();
+    }
+
+    @Test
+    void testCommitReplacesTarget() throws Exception {
+        //Arrange
+        Path target = Paths.get(TEST_FOLDER, "Orders_01012030.txt");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+        Path tempFile = GroupCommitter.tempFileFor(target);
+        Files.write(tempFile, "new".getBytes(StandardCharsets.UTF_8));
+
+        //Act
+        committer.commit(tempFile, target);
+
+        //Assert
+        assertEquals("new", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(tempFile));
+        assertEquals(1, committer.getFolderSyncCount());
+    }
+
+    @Test
+    void testConcurrentCommitsShareFolderSyncs() throws Exception {
+        //Arrange: 8 writers committing 20 files each at the same time
+        int writers = 8;
+        int filesPerWriter = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            //Act
+            for (int writer = 0; writer < writers; writer++) {
+                int firstFile = writer * filesPerWriter;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = firstFile; i < firstFile + filesPerWriter; i++) {
+                        Path target = Paths.get(TEST_FOLDER, "file" + i);
+                        Path tempFile = GroupCommitter.tempFileFor(target);
+                        Files.write(tempFile, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+                        committer.commit(tempFile, target);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //Assert
+        for (int i = 0; i < writers * filesPerWriter; i++) {
+            assertEquals(String.valueOf(i), new String(Files.readAllBytes(Paths.get(TEST_FOLDER, "file" + i)), StandardCharsets.UTF_8));
+        }
+        assertEquals(writers * filesPerWriter, committer.getCommitCount());
+        assertTrue(committer.getFolderSyncCount() >= 1);
+        assertTrue(committer.getFolderSyncCount() <= committer.getCommitCount(), "never more than one folder force per commit");
+    }
+
+    @Test
+    void testNonDurableCommitDoesNotForce() throws Exception {
+        //Arrange
+        committer.setDurable(false);
+        Path target = Paths.get(TEST_FOLDER, "Orders_01012030.txt");
+        Path tempFile = GroupCommitter.tempFileFor(target);
+        Files.write(tempFile, "new".getBytes(StandardCharsets.UTF_8));
+
+        //Act
+        committer.commit(tempFile, target);
+
+        //Assert
+        assertTrue(Files.exists(target));
+        assertEquals(0, committer.getFolderSyncCount());
+    }
+}
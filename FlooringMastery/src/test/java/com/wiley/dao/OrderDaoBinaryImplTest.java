@@ -0,0 +1,134 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDaoBinaryImplTest {
+    private static final String TEST_FOLDER = "src/test/TestBinaryData";
+    private static final String TEXT_FOLDER = TEST_FOLDER + "/Text";
+    private static final String BINARY_FOLDER = TEST_FOLDER + "/Binary";
+    private static final String EXPORT_FOLDER = TEST_FOLDER + "/Backup";
+    private static final LocalDate DATE = LocalDate.of(2025, 6, 1);
+    private static final String ADA = "1,Ada Lovelace,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06";
+    private static final String GRACE = "2,Grace Hopper,TX,4.45,Wood,150,5.15,4.75,772.50,712.50,44.07,1529.07";
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(Paths.get(TEXT_FOLDER));
+        Files.createDirectories(Paths.get(BINARY_FOLDER));
+        try (PrintWriter writer = new PrintWriter(TEXT_FOLDER + "/Orders_06012025.txt")) {
+            writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
+            writer.println(ADA);
+            writer.println(GRACE);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        deleteDirectory(new File(TEST_FOLDER));
+    }
+
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                deleteDirectory(file);
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    void testConvertToBinaryKeepsExactAmounts() throws Exception {
+        //Act
+        int converted = OrderFileConverter.toBinary(TEXT_FOLDER, BINARY_FOLDER);
+
+        //Assert
+        assertEquals(2, converted);
+        assertTrue(Files.exists(Paths.get(BINARY_FOLDER, "Orders_06012025.bin")));
+        OrderDao binaryDao = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER);
+        Order grace = binaryDao.getByOrderAndDate(2, DATE);
+        assertEquals("Grace Hopper", grace.getCustomerName());
+        assertEquals(new BigDecimal("150"), grace.getArea(), "the scale of the amount should survive");
+        assertEquals(new BigDecimal("44.07"), grace.getTax());
+        assertEquals(DATE, grace.getDate());
+        assertEquals(List.of(DATE), binaryDao.getAllOrderDates());
+    }
+
+    @Test
+    void testConvertBackToText() throws Exception {
+        //Arrange
+        String roundTripFolder = TEST_FOLDER + "/RoundTrip";
+        OrderFileConverter.toBinary(TEXT_FOLDER, BINARY_FOLDER);
+
+        //Act
+        OrderFileConverter.toText(BINARY_FOLDER, roundTripFolder);
+
+        //Assert
+        List<String> lines = Files.readAllLines(Paths.get(roundTripFolder, "Orders_06012025.txt"));
+        assertEquals(3, lines.size(), "header plus two orders");
+        assertTrue(lines.contains(ADA));
+        assertTrue(lines.contains(GRACE));
+    }
+
+    @Test
+    void testMutationsArePersisted() throws Exception {
+        //Arrange
+        OrderFileConverter.toBinary(TEXT_FOLDER, BINARY_FOLDER);
+        OrderDao binaryDao = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER);
+        Order ada = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER).getByOrderAndDate(1, DATE);
+        ada.setCustomerName("Ada Byron");
+
+        //Act
+        Order previousOrder = binaryDao.updateOrder(1, DATE, ada);
+        Order removedOrder = binaryDao.removeOrder(2, DATE);
+
+        //Assert
+        assertEquals("Ada Lovelace", previousOrder.getCustomerName());
+        assertEquals(2, removedOrder.getOrderNumber());
+        OrderDao freshDao = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER);
+        assertEquals(1, freshDao.getAllOrdersByDay(DATE).size());
+        assertEquals("Ada Byron", freshDao.getByOrderAndDate(1, DATE).getCustomerName());
+        OrderDaoFileImplTest.assertSequenceCovers(2, freshDao.getMaxOrderNumber());
+    }
+
+    @Test
+    void testCorruptFileIsNotOverwritten() throws Exception {
+        //Arrange
+        Files.write(Paths.get(BINARY_FOLDER, "Orders_06012025.bin"), "not binary".getBytes());
+        OrderDao binaryDao = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER);
+        Order order = new OrderDaoFileImpl(TEXT_FOLDER, EXPORT_FOLDER).getByOrderAndDate(1, DATE);
+
+        //Act + Assert
+        assertThrows(OrderDataPersistenceException.class, () -> binaryDao.getAllOrdersByDay(DATE));
+        assertThrows(OrderDataPersistenceException.class, () -> binaryDao.addOrder(order, DATE));
+        assertEquals("not binary", Files.readAllLines(Paths.get(BINARY_FOLDER, "Orders_06012025.bin")).get(0));
+    }
+
+    @Test
+    void testTooLongTextIsRejectedAndTheDayKept() throws Exception {
+        //Arrange: a name longer than the 65535 bytes a string length can hold
+        OrderFileConverter.toBinary(TEXT_FOLDER, BINARY_FOLDER);
+        OrderDao binaryDao = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER);
+        Order ada = new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER).getByOrderAndDate(1, DATE);
+        ada.setCustomerName("A".repeat(70_000));
+
+        //Act + Assert
+        assertThrows(OrderDataPersistenceException.class, () -> binaryDao.updateOrder(1, DATE, ada));
+        assertEquals("Ada Lovelace", binaryDao.getByOrderAndDate(1, DATE).getCustomerName(),
+                "the change that could not be written is not kept in memory either");
+        assertEquals("Ada Lovelace", new OrderDaoBinaryImpl(BINARY_FOLDER, EXPORT_FOLDER).getByOrderAndDate(1, DATE).getCustomerName());
+    }
+}
@@ -1,6 +1,8 @@
 package com.wiley.dao;
 
+import com.wiley.model.DailyRollup;
 import com.wiley.model.Order;
+import com.wiley.model.OrderTotals;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,10 +13,23 @@ import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,7 +57,9 @@ class OrderDaoFileImplTest {
         LocalDate testDate = LocalDate.now().plusDays(1);
         String filePath = TEST_ORDER_FOLDER + "/Orders_" + testDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
 
-        //start with fresh file every test
+        //start with fresh files every test, the order number sequence is rebuilt from them
+        Files.deleteIfExists(Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME));
+        Files.deleteIfExists(Paths.get(TEST_ORDER_FOLDER, OrderNumberIndex.FILE_NAME));
         try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, false))) {
             //write header
             writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
@@ -153,6 +170,669 @@ class OrderDaoFileImplTest {
         assertTrue(maxOrder == 1, "Ada is #1");
     }
 
+    @Test
+    void testAddOrderWritesThroughToFile() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        //read once so the day is served from the cache afterwards
+        testOrderDao.getAllOrdersByDay(date);
+        Order order = testOrderDao.getByOrderAndDate(1, date);
+        Order newOrder = new Order(2);
+        newOrder.setCustomerName("Alan Turing");
+        newOrder.setState(order.getState());
+        newOrder.setTaxRate(order.getTaxRate());
+        newOrder.setProductType(order.getProductType());
+        newOrder.setArea(order.getArea());
+        newOrder.setCostPerSquareFoot(order.getCostPerSquareFoot());
+        newOrder.setLaborCostPerSquareFoot(order.getLaborCostPerSquareFoot());
+        newOrder.setMaterialCost(order.getMaterialCost());
+        newOrder.setLaborCost(order.getLaborCost());
+        newOrder.setTax(order.getTax());
+        newOrder.setTotal(order.getTotal());
+
+        //Act
+        testOrderDao.addOrder(newOrder, date);
+
+        //Assert
+        assertEquals(2, testOrderDao.getAllOrdersByDay(date).size(), "the cached day should see the new order");
+        //a fresh dao has nothing cached, so it has to read the file
+        OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        assertEquals("Alan Turing", freshDao.getByOrderAndDate(2, date).getCustomerName(), "the file should have been written too");
+    }
+
+    @Test
+    void testJournaledMutationsAreCompacted() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        String fileName = "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
+        OrderDaoFileImpl journaledDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        journaledDao.setJournaled(true);
+        Order order = journaledDao.getByOrderAndDate(1, date);
+        order.setCustomerName("Jane Smith");
+
+        //Act
+        journaledDao.updateOrder(1, date, order);
+
+        //Assert
+        assertTrue(Files.exists(Paths.get(TEST_ORDER_FOLDER, fileName + ".journal")), "the edit should be journaled");
+        assertTrue(Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName + ".txt")).get(1).contains("Ada Lovelace"),
+                "the day file should not be rewritten");
+        OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        assertEquals("Jane Smith", freshDao.getByOrderAndDate(1, date).getCustomerName(), "the journal should be replayed on load");
+
+        journaledDao.compactJournals();
+        assertFalse(Files.exists(Paths.get(TEST_ORDER_FOLDER, fileName + ".journal")), "compaction should delete the journal");
+        assertTrue(Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName + ".txt")).get(1).contains("Jane Smith"),
+                "compaction should fold the edit into the day file");
+    }
+
+    @Test
+    void testWriteBehindCoalescesDayWrites() throws Exception {
+        //Arrange: the writer only wakes up once 20 mutations are waiting
+        LocalDate date = LocalDate.now().plusDays(1);
+        String fileName = "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
+        OrderDaoFileImpl writeBehindDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        writeBehindDao.startWriteBehind(1, TimeUnit.HOURS, 20);
+
+        try {
+            //Act
+            for (int i = 0; i < 19; i++) {
+                Order order = new Order(100 + i);
+                order.setCustomerName("Customer " + i);
+                order.setState("TX");
+                order.setTaxRate(new BigDecimal("4.45"));
+                order.setProductType("Wood");
+                order.setArea(new BigDecimal("100.00"));
+                order.setCostPerSquareFoot(new BigDecimal("5.15"));
+                order.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+                order.setMaterialCost(new BigDecimal("515.00"));
+                order.setLaborCost(new BigDecimal("475.00"));
+                order.setTax(new BigDecimal("39.60"));
+                order.setTotal(new BigDecimal("1029.60"));
+                order.setDate(date);
+                writeBehindDao.addOrder(order, date);
+            }
+
+            //Assert: acknowledged and journaled, the day file is untouched
+            WriteBehindMetrics waiting = writeBehindDao.getWriteBehindMetrics();
+            assertEquals(19, waiting.getQueueDepth());
+            assertEquals(1, waiting.getPendingDays());
+            assertEquals(19, waiting.getAcknowledgedMutations());
+            assertEquals(0, waiting.getCommits());
+            assertEquals(2, Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName + ".txt")).size());
+            OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+            assertEquals(20, freshDao.getAllOrdersByDay(date).size(), "the journal should be replayed on load");
+
+            //the 20th mutation wakes the writer up, which writes the day once
+            Order order = writeBehindDao.getByOrderAndDate(1, date);
+            order.setCustomerName("Jane Smith");
+            writeBehindDao.updateOrder(1, date, order);
+            //the queue empties inside the day write, the commit is counted right after it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            WriteBehindMetrics progress = writeBehindDao.getWriteBehindMetrics();
+            while ((progress.getQueueDepth() > 0 || progress.getCommits() == 0) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+                progress = writeBehindDao.getWriteBehindMetrics();
+            }
+
+            WriteBehindMetrics written = writeBehindDao.getWriteBehindMetrics();
+            assertEquals(0, written.getQueueDepth());
+            assertEquals(0, written.getPendingDays());
+            assertEquals(1, written.getCommits(), "all 20 mutations should go into one day write");
+            assertEquals(20, written.getCommittedMutations());
+            assertFalse(Files.exists(Paths.get(TEST_ORDER_FOLDER, fileName + ".journal")));
+            List<String> lines = Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName + ".txt"));
+            assertEquals(21, lines.size());
+            assertTrue(lines.get(1).contains("Jane Smith"));
+        } finally {
+            writeBehindDao.shutdown();
+        }
+    }
+
+    @Test
+    void testWriteBehindReportsDaysItCannotWrite() throws Exception {
+        //Arrange: a journal from an earlier run with a broken record in the middle, not just a torn last line
+        LocalDate date = LocalDate.now().plusDays(1);
+        Path journalFile = Paths.get(TEST_ORDER_FOLDER,
+                "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".journal");
+        Files.write(journalFile, List.of("GARBAGE", "REMOVE,1"));
+        OrderDaoFileImpl writeBehindDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+
+        try {
+            //Act
+            writeBehindDao.startWriteBehind(1, TimeUnit.HOURS, 0);
+
+            //Assert
+            WriteBehindMetrics metrics = writeBehindDao.getWriteBehindMetrics();
+            assertEquals(1, metrics.getFailedCommits());
+            assertNotNull(metrics.getLastFailure());
+            assertTrue(Files.exists(journalFile), "the journal is kept for a later attempt");
+        } finally {
+            Files.deleteIfExists(journalFile);
+            writeBehindDao.shutdown();
+        }
+    }
+
+    @Test
+    void testCorruptJournalFailsWritesInsteadOfOverwritingTheDay() throws Exception {
+        //Arrange: a broken record in the middle of the day's journal
+        LocalDate date = LocalDate.now().plusDays(1);
+        String fileName = "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy"));
+        Path journalFile = Paths.get(TEST_ORDER_FOLDER, fileName + ".journal");
+        Files.write(journalFile, List.of("GARBAGE", "REMOVE,1"));
+        Order order = new Order(2);
+        order.setCustomerName("Alan Turing");
+        order.setState("TX");
+        order.setTaxRate(new BigDecimal("4.45"));
+        order.setProductType("Wood");
+        order.setArea(new BigDecimal("100.00"));
+        order.setCostPerSquareFoot(new BigDecimal("5.15"));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+        order.setMaterialCost(new BigDecimal("515.00"));
+        order.setLaborCost(new BigDecimal("475.00"));
+        order.setTax(new BigDecimal("39.60"));
+        order.setTotal(new BigDecimal("1029.60"));
+        order.setDate(date);
+
+        try {
+            //Act + Assert
+            assertThrows(OrderDataPersistenceException.class, () -> testOrderDao.addOrder(order, date));
+            assertThrows(OrderDataPersistenceException.class,
+                    () -> testOrderDao.applyBatch(date, List.of(OrderMutation.add(order))));
+            assertThrows(OrderDataPersistenceException.class, () -> testOrderDao.addOrders(List.of(order), date));
+
+            //the day and its journal are left as they were
+            assertTrue(Files.exists(journalFile), "the journal must not be deleted");
+            List<String> lines = Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName + ".txt"));
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).contains("Ada Lovelace"));
+        } finally {
+            Files.deleteIfExists(journalFile);
+        }
+    }
+
+    @Test
+    void testUpdateIfUnchangedKeepsAnEditMadeSinceTheRead() throws Exception {
+        //Arrange: a job reads order 1, then someone else edits it
+        LocalDate date = LocalDate.now().plusDays(1);
+        Order readOrder = testOrderDao.getByOrderAndDate(1, date);
+        Order jobOrder = copyOf(readOrder);
+        jobOrder.setTaxRate(new BigDecimal("30.00"));
+        Order editedOrder = copyOf(readOrder);
+        editedOrder.setCustomerName("Jane Smith");
+        testOrderDao.updateOrder(1, date, editedOrder);
+
+        //Act
+        List<Order> previousOrders = testOrderDao.applyBatch(date, List.of(OrderMutation.updateIfUnchanged(readOrder, jobOrder)));
+
+        //Assert: the job's update is skipped, the edit stays
+        assertNull(previousOrders.get(0));
+        Order storedOrder = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getByOrderAndDate(1, date);
+        assertEquals("Jane Smith", storedOrder.getCustomerName());
+        assertEquals(new BigDecimal("25.00"), storedOrder.getTaxRate());
+
+        //an update based on the current order goes through
+        previousOrders = testOrderDao.applyBatch(date, List.of(OrderMutation.updateIfUnchanged(storedOrder, jobOrder)));
+        assertNotNull(previousOrders.get(0));
+        assertEquals(new BigDecimal("30.00"), testOrderDao.getByOrderAndDate(1, date).getTaxRate());
+    }
+
+    // the sequence is written a block ahead: never below the highest order, at most a block above it
+    static void assertSequenceCovers(int highestOrderNumber, int maxOrderNumber) {
+        assertTrue(maxOrderNumber >= highestOrderNumber && maxOrderNumber <= highestOrderNumber + OrderNumberSequence.DEFAULT_BLOCK_SIZE,
+                maxOrderNumber + " should cover order #" + highestOrderNumber);
+    }
+
+    private static Order copyOf(Order order) {
+        return copyOf(order, order.getOrderNumber());
+    }
+
+    private static Order copyOf(Order order, int orderNumber) {
+        Order copy = new Order(orderNumber);
+        copy.setDate(order.getDate());
+        copy.setCustomerName(order.getCustomerName());
+        copy.setState(order.getState());
+        copy.setTaxRate(order.getTaxRate());
+        copy.setProductType(order.getProductType());
+        copy.setArea(order.getArea());
+        copy.setCostPerSquareFoot(order.getCostPerSquareFoot());
+        copy.setLaborCostPerSquareFoot(order.getLaborCostPerSquareFoot());
+        copy.setMaterialCost(order.getMaterialCost());
+        copy.setLaborCost(order.getLaborCost());
+        copy.setTax(order.getTax());
+        copy.setTotal(order.getTotal());
+        return copy;
+    }
+
+    @Test
+    void testApplyBatch() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        String fileName = "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        //a copy read by another dao, so the cached order itself is not edited
+        Order ada = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getByOrderAndDate(1, date);
+        ada.setCustomerName("Ada Byron");
+        Order grace = new Order(2);
+        grace.setCustomerName("Grace Hopper");
+        grace.setState("TX");
+        grace.setTaxRate(new BigDecimal("4.45"));
+        grace.setProductType("Wood");
+        grace.setArea(new BigDecimal("100.00"));
+        grace.setCostPerSquareFoot(new BigDecimal("5.15"));
+        grace.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+        grace.setMaterialCost(new BigDecimal("515.00"));
+        grace.setLaborCost(new BigDecimal("475.00"));
+        grace.setTax(new BigDecimal("44.06"));
+        grace.setTotal(new BigDecimal("1034.06"));
+
+        //Act
+        List<Order> previousOrders = testOrderDao.applyBatch(date, List.of(
+                OrderMutation.update(ada),
+                OrderMutation.add(grace),
+                OrderMutation.remove(99)));
+
+        //Assert
+        assertEquals(3, previousOrders.size(), "one result per mutation");
+        assertEquals("Ada Lovelace", previousOrders.get(0).getCustomerName(), "the update returns the replaced order");
+        assertNull(previousOrders.get(1), "order #2 is new");
+        assertNull(previousOrders.get(2), "there is no order #99 to remove");
+        List<String> lines = Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, fileName));
+        assertEquals(3, lines.size(), "header plus two orders");
+        OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        assertEquals("Ada Byron", freshDao.getByOrderAndDate(1, date).getCustomerName());
+        assertEquals("Grace Hopper", freshDao.getByOrderAndDate(2, date).getCustomerName());
+        assertSequenceCovers(2, freshDao.getMaxOrderNumber());
+    }
+
+    @Test
+    void testFindOrdersFollowsMutations() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        assertEquals(1, testOrderDao.findOrders(OrderSearchField.STATE, "ca").size(), "Ada is in CA, any case matches");
+        Order ada = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getByOrderAndDate(1, date);
+        ada.setState("TX");
+
+        //Act
+        testOrderDao.updateOrder(1, date, ada);
+
+        //Assert
+        assertTrue(testOrderDao.findOrders(OrderSearchField.STATE, "CA").isEmpty(), "the edit moves Ada out of CA");
+        List<Order> texasOrders = testOrderDao.findOrders(OrderSearchField.STATE, "TX");
+        assertEquals(1, texasOrders.size());
+        assertEquals("Ada Lovelace", texasOrders.get(0).getCustomerName());
+        assertEquals(1, testOrderDao.findOrders(OrderSearchField.PRODUCT_TYPE, "Tile").size());
+
+        testOrderDao.removeOrder(1, date);
+        assertTrue(testOrderDao.findOrders(OrderSearchField.CUSTOMER_NAME, "Ada Lovelace").isEmpty());
+    }
+
+    @Test
+    void testDailyRollupFollowsMutations() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        Order grace = new Order(2);
+        grace.setCustomerName("Grace Hopper");
+        grace.setState("TX");
+        grace.setTaxRate(new BigDecimal("4.45"));
+        grace.setProductType("Wood");
+        grace.setArea(new BigDecimal("100.00"));
+        grace.setCostPerSquareFoot(new BigDecimal("5.15"));
+        grace.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+        grace.setMaterialCost(new BigDecimal("515.00"));
+        grace.setLaborCost(new BigDecimal("475.00"));
+        grace.setTax(new BigDecimal("39.60"));
+        grace.setTotal(new BigDecimal("1029.60"));
+        grace.setDate(date);
+        assertEquals(new OrderTotals(1, new BigDecimal("871.50"), new BigDecimal("1033.35"),
+                new BigDecimal("476.21"), new BigDecimal("2381.06")), testOrderDao.getDailyRollup(date).getTotals());
+
+        //Act
+        testOrderDao.addOrder(grace, date);
+        Order ada = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getByOrderAndDate(1, date);
+        ada.setState("TX");
+        testOrderDao.updateOrder(1, date, ada);
+
+        //Assert
+        DailyRollup rollup = testOrderDao.getDailyRollup(date);
+        assertEquals(2, rollup.getTotals().getOrderCount());
+        assertEquals(0, new BigDecimal("3410.66").compareTo(rollup.getTotals().getTotal()));
+        assertEquals(List.of("TX"), List.copyOf(rollup.getTotalsByState().keySet()), "the edit moves Ada out of CA");
+        assertEquals(1, rollup.getTotalsByProductType().get("Wood").getOrderCount());
+        assertEquals(rollup, new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getDailyRollup(date),
+                "a fresh DAO reads the rollup file");
+        assertEquals(rollupOf(date, testOrderDao.getAllOrdersByDay(date)), rollup);
+
+        testOrderDao.removeOrder(2, date);
+        assertNull(testOrderDao.getDailyRollup(date).getTotalsByProductType().get("Wood"));
+        assertEquals(0, testOrderDao.getDailyRollup(date.plusDays(30)).getTotals().getOrderCount(), "a day without orders");
+    }
+
+    @Test
+    void testDailyRollupIgnoresStaleFile() throws Exception {
+        //Arrange: a rollup file for Ada's day, then the day file is edited by hand
+        LocalDate date = LocalDate.now().plusDays(1);
+        testOrderDao.getDailyRollup(date);
+        assertTrue(Files.exists(Paths.get(TEST_ORDER_FOLDER,
+                "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + OrderRollupStore.FILE_EXTENSION)));
+        String filePath = TEST_ORDER_FOLDER + "/Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, true))) {
+            writer.println("2,Grace Hopper,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60");
+        }
+
+        //Act
+        DailyRollup rollup = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getDailyRollup(date);
+
+        //Assert
+        assertEquals(2, rollup.getTotals().getOrderCount(), "the rollup is added up again from the edited file");
+    }
+
+    @Test
+    void testCachedDailyRollupIgnoresHandEdit() throws Exception {
+        //Arrange: the rollup is in this dao's memory, then the day file is edited by hand
+        LocalDate date = LocalDate.now().plusDays(1);
+        assertEquals(1, testOrderDao.getDailyRollup(date).getTotals().getOrderCount());
+        String filePath = TEST_ORDER_FOLDER + "/Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath, true))) {
+            writer.println("2,Grace Hopper,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60");
+        }
+
+        //Act
+        DailyRollup rollup = testOrderDao.getDailyRollup(date);
+
+        //Assert
+        assertEquals(2, rollup.getTotals().getOrderCount(), "the cached rollup no longer matches the day file");
+    }
+
+    @Test
+    void testJournaledWritesLeaveTheRollupFileUntilCompaction() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        Path rollupFile = Paths.get(TEST_ORDER_FOLDER,
+                "Orders_" + date.format(DateTimeFormatter.ofPattern("MMddyyyy")) + OrderRollupStore.FILE_EXTENSION);
+        OrderDaoFileImpl journaledDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        journaledDao.setJournaled(true);
+        journaledDao.getDailyRollup(date);
+        String writtenRollup = Files.readString(rollupFile);
+
+        //Act
+        journaledDao.addOrder(copyOf(journaledDao.getByOrderAndDate(1, date), 2), date);
+
+        //Assert
+        assertEquals(2, journaledDao.getDailyRollup(date).getTotals().getOrderCount(), "kept in memory");
+        assertEquals(writtenRollup, Files.readString(rollupFile), "only the journal was written");
+        assertEquals(2, new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getDailyRollup(date).getTotals().getOrderCount(),
+                "the stale file is not used after a restart");
+
+        journaledDao.compactJournals();
+        assertNotEquals(writtenRollup, Files.readString(rollupFile), "written with the day file");
+        assertEquals(2, new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getDailyRollup(date).getTotals().getOrderCount());
+    }
+
+    @Test
+    void testConcurrentWritesLoseNothing() throws Exception {
+        //Arrange: 8 clerks, each adding 50 orders to one of two days while others read them
+        LocalDate date = LocalDate.now().plusDays(1);
+        LocalDate otherDate = LocalDate.now().plusDays(2);
+        String otherFile = TEST_ORDER_FOLDER + "/Orders_" + otherDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        int clerks = 8;
+        int ordersPerClerk = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(clerks);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            //Act
+            for (int clerk = 0; clerk < clerks; clerk++) {
+                int firstOrderNumber = 1000 * (clerk + 1);
+                LocalDate clerkDate = clerk % 2 == 0 ? date : otherDate;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ordersPerClerk; i++) {
+                        Order order = new Order(firstOrderNumber + i);
+                        order.setCustomerName("Clerk " + firstOrderNumber);
+                        order.setState("TX");
+                        order.setTaxRate(new BigDecimal("4.45"));
+                        order.setProductType("Wood");
+                        order.setArea(new BigDecimal("100.00"));
+                        order.setCostPerSquareFoot(new BigDecimal("5.15"));
+                        order.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+                        order.setMaterialCost(new BigDecimal("515.00"));
+                        order.setLaborCost(new BigDecimal("475.00"));
+                        order.setTax(new BigDecimal("39.60"));
+                        order.setTotal(new BigDecimal("1029.60"));
+                        order.setDate(clerkDate);
+                        testOrderDao.addOrder(order, clerkDate);
+                        //reading a day while it is being written must not fail
+                        testOrderDao.getAllOrdersByDay(clerkDate).size();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+
+            //Assert: a fresh DAO reads back every order from the files
+            OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+            int half = clerks / 2 * ordersPerClerk;
+            assertEquals(1 + half, freshDao.getAllOrdersByDay(date).size(), "Ada plus every order of the even clerks");
+            assertEquals(half, freshDao.getAllOrdersByDay(otherDate).size());
+            assertEquals(half, freshDao.getDailyRollup(otherDate).getTotals().getOrderCount());
+            assertSequenceCovers(1000 * clerks + ordersPerClerk - 1, freshDao.getMaxOrderNumber());
+        } finally {
+            executor.shutdownNow();
+            Files.deleteIfExists(Paths.get(otherFile));
+        }
+    }
+
+    private static DailyRollup rollupOf(LocalDate date, List<Order> orders) {
+        DailyRollup rollup = new DailyRollup(date);
+        orders.forEach(rollup::add);
+        return rollup;
+    }
+
+    @Test
+    void testGetByOrderNumber() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        LocalDate laterDate = LocalDate.now().plusDays(2);
+        Order order = new Order(2);
+        order.setCustomerName("Grace Hopper");
+        order.setState("TX");
+        order.setTaxRate(new BigDecimal("4.45"));
+        order.setProductType("Wood");
+        order.setArea(new BigDecimal("100.00"));
+        order.setCostPerSquareFoot(new BigDecimal("5.15"));
+        order.setLaborCostPerSquareFoot(new BigDecimal("4.75"));
+        order.setMaterialCost(new BigDecimal("515.00"));
+        order.setLaborCost(new BigDecimal("475.00"));
+        order.setTax(new BigDecimal("39.60"));
+        order.setTotal(new BigDecimal("1029.60"));
+        order.setDate(laterDate);
+
+        //Act + Assert
+        //the first lookup builds the index from the day files
+        assertEquals(date, testOrderDao.getByOrderNumber(1).getDate());
+        assertTrue(Files.exists(Paths.get(TEST_ORDER_FOLDER, OrderNumberIndex.FILE_NAME)));
+
+        testOrderDao.addOrder(order, laterDate);
+        OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        assertEquals("Grace Hopper", freshDao.getByOrderNumber(2).getCustomerName(), "the index file should know the new order");
+
+        testOrderDao.removeOrder(2, laterDate);
+        assertThrows(OrderDataPersistenceException.class, () -> testOrderDao.getByOrderNumber(2));
+        assertThrows(OrderDataPersistenceException.class,
+                () -> new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getByOrderNumber(2));
+        assertThrows(OrderDataPersistenceException.class, () -> testOrderDao.getByOrderNumber(99));
+
+        //clean up the extra day file
+        Files.deleteIfExists(Paths.get(TEST_ORDER_FOLDER,
+                "Orders_" + laterDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt"));
+    }
+
+    @Test
+    void testGetByOrderNumberChecksTheIndexedDay() throws Exception {
+        //an index pointing at a day that doesn't have the order, as a crash could leave it
+        String wrongDay = LocalDate.now().plusDays(2).format(DateTimeFormatter.ofPattern("MMddyyyy"));
+        Files.write(Paths.get(TEST_ORDER_FOLDER, OrderNumberIndex.FILE_NAME), ("1," + wrongDay + "\n").getBytes());
+
+        assertThrows(OrderDataPersistenceException.class, () -> testOrderDao.getByOrderNumber(1));
+
+        //a corrupt index is rebuilt from the day files
+        Files.write(Paths.get(TEST_ORDER_FOLDER, OrderNumberIndex.FILE_NAME), "garbage".getBytes());
+        OrderDao freshDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        assertEquals("Ada Lovelace", freshDao.getByOrderNumber(1).getCustomerName());
+    }
+
+    @Test
+    void testGetOrdersInRange() throws Exception {
+        //Arrange: a second day three days after Ada's, with nothing in between
+        LocalDate date = LocalDate.now().plusDays(1);
+        LocalDate laterDate = date.plusDays(3);
+        String laterFile = TEST_ORDER_FOLDER + "/Orders_" + laterDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        try (PrintWriter writer = new PrintWriter(new FileWriter(laterFile, false))) {
+            writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
+            writer.println("3,Grace Hopper,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60");
+            writer.println("2,Alan Turing,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60");
+        }
+
+        try {
+            //Act
+            List<Order> orders = testOrderDao.getOrdersInRange(date.minusDays(10), laterDate.plusDays(10))
+                    .collect(Collectors.toList());
+
+            //Assert
+            assertEquals(3, orders.size());
+            assertEquals(List.of(1, 2, 3), orders.stream().map(Order::getOrderNumber).collect(Collectors.toList()),
+                    "by date, then by order number");
+            assertEquals(laterDate, orders.get(2).getDate());
+            assertEquals(2, testOrderDao.getOrdersInRange(date.plusDays(1), laterDate).count());
+            assertEquals(0, testOrderDao.getOrdersInRange(date.plusDays(1), date.plusDays(2)).count(), "empty days are skipped");
+            assertEquals(0, testOrderDao.getOrdersInRange(laterDate, date).count());
+        } finally {
+            Files.deleteIfExists(Paths.get(laterFile));
+        }
+    }
+
+    @Test
+    void testGetOrdersInRangeReadsABoundedWindowOfDaysAhead() throws Exception {
+        //Arrange: Ada's day and five more days, an executor that counts the days given to it
+        LocalDate date = LocalDate.now().plusDays(1);
+        List<Path> laterFiles = new ArrayList<>();
+        for (int day = 1; day <= 5; day++) {
+            Path laterFile = Paths.get(TEST_ORDER_FOLDER, "Orders_" + date.plusDays(day).format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt");
+            Files.write(laterFile, List.of(
+                    "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total",
+                    (day + 1) + ",Alan Turing,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60"));
+            laterFiles.add(laterFile);
+        }
+        AtomicInteger submittedDays = new AtomicInteger();
+        ExecutorService executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            public void execute(Runnable command) {
+                submittedDays.incrementAndGet();
+                super.execute(command);
+            }
+        };
+        ((OrderDaoFileImpl) testOrderDao).setRangeExecutor(executor, 2);
+
+        try {
+            //Act
+            Order first;
+            try (Stream<Order> orders = testOrderDao.getOrdersInRange(date, date.plusDays(5))) {
+                first = orders.iterator().next();
+            }
+
+            //Assert
+            assertEquals(1, first.getOrderNumber());
+            assertEquals(2, submittedDays.get(), "only the window is read ahead of the consumer");
+            assertEquals(List.of(1, 2, 3, 4, 5, 6), testOrderDao.getOrdersInRange(date, date.plusDays(5))
+                    .map(Order::getOrderNumber).collect(Collectors.toList()), "the whole range, in date order");
+            ((OrderDaoFileImpl) testOrderDao).setRangeExecutor(null, 2);
+            assertEquals(6, testOrderDao.getOrdersInRange(date, date.plusDays(5)).count(), "read on the calling thread");
+        } finally {
+            executor.shutdownNow();
+            for (Path laterFile : laterFiles) {
+                Files.deleteIfExists(laterFile);
+            }
+        }
+    }
+
+    @Test
+    void testGetMaxOrderNumberFromSequenceFile() throws Exception {
+        //a full scan only finds Ada, the sequence knows about later orders
+        Files.write(Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME), "41".getBytes());
+        assertEquals(41, testOrderDao.getMaxOrderNumber(), "the sequence file should be used instead of a scan");
+
+        //a corrupt sequence file falls back to the scan and gets repaired
+        Files.write(Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME), "garbage".getBytes());
+        assertEquals(1, testOrderDao.getMaxOrderNumber(), "Ada is #1");
+        assertEquals("1", Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME)).get(0));
+    }
+
+    @Test
+    void testSequenceIsWrittenOncePerBlock() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        Path sequenceFile = Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME);
+        Order ada = testOrderDao.getByOrderAndDate(1, date);
+
+        //Act
+        testOrderDao.addOrder(copyOf(ada, 2), date);
+        String reserved = Files.readAllLines(sequenceFile).get(0);
+        for (int orderNumber = 3; orderNumber <= 2 + OrderNumberSequence.DEFAULT_BLOCK_SIZE; orderNumber++) {
+            testOrderDao.addOrder(copyOf(ada, orderNumber), date);
+        }
+
+        //Assert
+        assertEquals(String.valueOf(2 + OrderNumberSequence.DEFAULT_BLOCK_SIZE), reserved, "#2 reserves a block past it");
+        assertEquals(reserved, Files.readAllLines(sequenceFile).get(0), "the rest of the block leaves the file alone");
+        testOrderDao.addOrder(copyOf(ada, 3 + OrderNumberSequence.DEFAULT_BLOCK_SIZE), date);
+        assertEquals(String.valueOf(3 + 2 * OrderNumberSequence.DEFAULT_BLOCK_SIZE), Files.readAllLines(sequenceFile).get(0));
+    }
+
+    @Test
+    void testWriteWithoutSequenceFileRecoversItFromTheOrders() throws Exception {
+        //Arrange: an archive with order #100 and no sequence file, nobody called getMaxOrderNumber()
+        LocalDate date = LocalDate.now().plusDays(1);
+        LocalDate otherDate = LocalDate.now().plusDays(2);
+        Path otherFile = Paths.get(TEST_ORDER_FOLDER, "Orders_" + otherDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt");
+        Files.write(otherFile, List.of(
+                "OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total",
+                "100,Alan Turing,TX,4.45,Wood,100.00,5.15,4.75,515.00,475.00,39.60,1029.60"));
+        Order order = testOrderDao.getByOrderAndDate(1, date);
+
+        try {
+            //Act: an order with a lower number is written first
+            testOrderDao.addOrder(copyOf(order, 5), date);
+
+            //Assert: the sequence is rebuilt from the orders, not started at the new number
+            assertEquals("100", Files.readAllLines(Paths.get(TEST_ORDER_FOLDER, OrderNumberSequence.FILE_NAME)).get(0));
+            assertEquals(100, new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER).getMaxOrderNumber());
+        } finally {
+            Files.deleteIfExists(otherFile);
+        }
+    }
+
+    @Test
+    void testMemoryMappedReads() throws Exception {
+        //Arrange
+        LocalDate date = LocalDate.now().plusDays(1);
+        OrderDaoFileImpl mappedDao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+        mappedDao.setMemoryMappedReads(true);
+
+        //Act
+        Order order = mappedDao.getByOrderAndDate(1, date);
+
+        //Assert
+        assertEquals("Ada Lovelace", order.getCustomerName());
+        assertEquals(new BigDecimal("25.00"), order.getTaxRate());
+        assertEquals(new BigDecimal("2381.06"), order.getTotal());
+        assertEquals(date, order.getDate());
+        assertEquals(1, mappedDao.getMaxOrderNumber(), "Ada is #1");
+    }
+
     @Test
     void testExportAll() throws Exception {
         //Arrange
@@ -178,16 +858,43 @@ class OrderDaoFileImplTest {
 
         //the exported order exists in the file?
         assertTrue(lines.stream().anyMatch(line -> line.contains("Ada Lovelace")), "Exported file should contain Ada's order");
+        //the backup line is the order line followed by its date
+        assertTrue(lines.contains("1,Ada Lovelace,CA,25.00,Tile,249.00,3.50,4.15,871.50,1033.35,476.21,2381.06," + date),
+                "Ada's order should be exported with its date");
     }
 
-
-
-
-
-
-
-
-
-
-
-}
\ No newline at end of file
+    @Test
+    void testParallelExportMatchesSequentialExport() throws Exception {
+        //Arrange: a second day, written out of order number order
+        LocalDate secondDate = LocalDate.now().plusDays(2);
+        String secondFilePath = TEST_ORDER_FOLDER + "/Orders_" + secondDate.format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        try (PrintWriter writer = new PrintWriter(new FileWriter(secondFilePath, false))) {
+            writer.println("OrderNumber,CustomerName,State,TaxRate,ProductType,Area,CostPerSquareFoot,LaborCostPerSquareFoot,MaterialCost,LaborCost,Tax,Total");
+            writer.println("3,Albert Einstein,KY,6.00,Carpet,217.00,2.25,2.10,488.25,455.70,56.64,1000.59");
+            writer.println("2,Doctor Who,WA,9.25,Wood,243.00,5.15,4.75,1251.45,1154.25,216.51,2622.21");
+        }
+        String backupFilePath = TEST_EXPORT_FOLDER + "/Backup_" + LocalDate.now().format(DateTimeFormatter.ofPattern("MMddyyyy")) + ".txt";
+        OrderDaoFileImpl dao = new OrderDaoFileImpl(TEST_ORDER_FOLDER, TEST_EXPORT_FOLDER);
+
+        try {
+            //Act
+            dao.exportAll();
+            List<String> sequentialLines = Files.readAllLines(Paths.get(backupFilePath));
+            ForkJoinPool pool = new ForkJoinPool(4);
+            dao.setExportExecutor(pool, 8);
+            dao.exportAll();
+            pool.shutdown();
+            List<String> parallelLines = Files.readAllLines(Paths.get(backupFilePath));
+
+            //Assert
+            assertEquals(sequentialLines, parallelLines, "parallel export should write the same file");
+            assertEquals(4, parallelLines.size(), "header and three orders");
+            assertTrue(parallelLines.get(1).startsWith("1,"), "ordered by date first");
+            assertTrue(parallelLines.get(2).startsWith("2,"), "then by order number");
+            assertTrue(parallelLines.get(3).startsWith("3,"));
+        } finally {
+            //other tests expect Ada to be the only order
+            Files.deleteIfExists(Paths.get(secondFilePath));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderDayCacheTest {
+
+    private HashMap<Integer, Order> ordersOfSize(int size) {
+        HashMap<Integer, Order> orders = new HashMap<>();
+        for (int i = 1; i <= size; i++) {
+            orders.put(i, new Order(i));
+        }
+        return orders;
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedDay() {
+        OrderDayCache cache = new OrderDayCache(2, Long.MAX_VALUE);
+        LocalDate first = LocalDate.of(2025, 6, 1);
+        LocalDate second = LocalDate.of(2025, 6, 2);
+        LocalDate third = LocalDate.of(2025, 6, 3);
+
+        cache.put(first, ordersOfSize(1));
+        cache.put(second, ordersOfSize(1));
+        //touch the first day so the second one becomes the eldest
+        cache.get(first);
+        cache.put(third, ordersOfSize(1));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(first), "first day was used recently and should stay");
+        assertNull(cache.get(second), "second day was the least recently used and should be evicted");
+        assertNotNull(cache.get(third));
+    }
+
+    @Test
+    void testMemoryBudget() {
+        OrderDayCache cache = new OrderDayCache(10, 3 * OrderDayCache.ESTIMATED_BYTES_PER_ORDER);
+        LocalDate first = LocalDate.of(2025, 6, 1);
+        LocalDate second = LocalDate.of(2025, 6, 2);
+
+        cache.put(first, ordersOfSize(2));
+        cache.put(second, ordersOfSize(2));
+        assertNull(cache.get(first), "both days together go over the budget");
+        assertNotNull(cache.get(second));
+
+        cache.put(first, ordersOfSize(4));
+        assertNull(cache.get(first), "a day bigger than the whole budget is never cached");
+        assertEquals(2 * OrderDayCache.ESTIMATED_BYTES_PER_ORDER, cache.getEstimatedBytes());
+    }
+
+    @Test
+    void testDisabledCache() {
+        OrderDayCache cache = new OrderDayCache(0, Long.MAX_VALUE);
+        cache.put(LocalDate.of(2025, 6, 1), ordersOfSize(1));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,65 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderIndexTest {
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+    private static final LocalDate TUESDAY = LocalDate.of(2025, 6, 3);
+
+    private static Order order(int orderNumber, String customerName, String state, String productType) {
+        Order order = new Order(orderNumber);
+        order.setCustomerName(customerName);
+        order.setState(state);
+        order.setProductType(productType);
+        return order;
+    }
+
+    @Test
+    void testFindByEachField() {
+        OrderIndex index = new OrderIndex();
+        index.add(MONDAY, order(1, "Ada Lovelace", "CA", "Tile"));
+        index.add(MONDAY, order(2, "Grace Hopper", "TX", "Wood"));
+        index.add(TUESDAY, order(3, "Ada Lovelace", "TX", "Wood"));
+
+        SortedMap<LocalDate, SortedSet<Integer>> ada = index.find(OrderSearchField.CUSTOMER_NAME, "ada lovelace");
+        assertEquals(List.of(MONDAY, TUESDAY), List.copyOf(ada.keySet()), "oldest date first");
+        assertEquals(Set.of(1), ada.get(MONDAY));
+        assertEquals(Set.of(2), index.find(OrderSearchField.STATE, "TX").get(MONDAY));
+        assertEquals(Set.of(3), index.find(OrderSearchField.PRODUCT_TYPE, "WOOD").get(TUESDAY));
+        assertTrue(index.find(OrderSearchField.STATE, "KY").isEmpty());
+    }
+
+    @Test
+    void testReplaceMovesOrderBetweenValues() {
+        OrderIndex index = new OrderIndex();
+        Order before = order(1, "Ada Lovelace", "CA", "Tile");
+        index.add(MONDAY, before);
+
+        index.replace(MONDAY, before, order(1, "Ada Lovelace", "KY", "Tile"));
+
+        assertTrue(index.find(OrderSearchField.STATE, "CA").isEmpty());
+        assertEquals(Set.of(1), index.find(OrderSearchField.STATE, "KY").get(MONDAY));
+
+        index.replace(MONDAY, order(1, "Ada Lovelace", "KY", "Tile"), null);
+        assertTrue(index.find(OrderSearchField.CUSTOMER_NAME, "Ada Lovelace").isEmpty());
+    }
+
+    @Test
+    void testFindReturnsCopy() {
+        OrderIndex index = new OrderIndex();
+        index.add(MONDAY, order(1, "Ada Lovelace", "CA", "Tile"));
+
+        index.find(OrderSearchField.STATE, "CA").get(MONDAY).clear();
+
+        assertEquals(Set.of(1), index.find(OrderSearchField.STATE, "CA").get(MONDAY));
+    }
+}
@@ -0,0 +1,109 @@
+package com.wiley.dao;
+
+import com.wiley.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJournalTest {
+    private static final String TEST_FOLDER = "src/test/TestJournalData";
+    private static final LocalDate DATE = LocalDate.of(2025, 6, 1);
+    private static final Path JOURNAL_FILE = Paths.get(TEST_FOLDER, "Orders_06012025" + OrderJournal.FILE_EXTENSION);
+    // the payload of an ADD here is just "orderNumber,customerName"
+    private static final Function<String, Order> UNMARSHALLER = payload -> {
+        String[] fields = payload.split(",");
+        Order order = new Order(Integer.parseInt(fields[0]));
+        order.setCustomerName(fields[1]);
+        return order;
+    };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(Paths.get(TEST_FOLDER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        File[] files = new File(TEST_FOLDER).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        new File(TEST_FOLDER).delete();
+    }
+
+    private static HashMap<Integer, Order> replay(OrderJournal journal) throws Exception {
+        HashMap<Integer, Order> orderMap = new HashMap<>();
+        journal.replay(DATE, orderMap, UNMARSHALLER);
+        return orderMap;
+    }
+
+    // what a crash in the middle of writing the last record leaves
+    private static void tearLastBytes(int count) throws Exception {
+        byte[] bytes = Files.readAllBytes(JOURNAL_FILE);
+        Files.write(JOURNAL_FILE, Arrays.copyOf(bytes, bytes.length - count));
+    }
+
+    @Test
+    void testTornLastRecordIsNotReplayed() throws Exception {
+        //Arrange: the crash cut "REMOVE,123" down to "REMOVE,12", which would remove order 12
+        OrderJournal journal = new OrderJournal(TEST_FOLDER);
+        journal.append(DATE, List.of(OrderJournal.record(OrderJournal.ADD, "12,Ada Lovelace"),
+                OrderJournal.record(OrderJournal.ADD, "123,Grace Hopper")));
+        journal.append(DATE, List.of(OrderJournal.record(OrderJournal.REMOVE, "123")));
+        String lastLine = Files.readAllLines(JOURNAL_FILE).get(2);
+        tearLastBytes(lastLine.length() + 1 - "REMOVE,12".length());
+
+        //Act
+        HashMap<Integer, Order> orderMap = replay(new OrderJournal(TEST_FOLDER));
+
+        //Assert
+        assertEquals(2, orderMap.size(), "only the complete records are replayed");
+        assertEquals("Ada Lovelace", orderMap.get(12).getCustomerName());
+        assertEquals("Grace Hopper", orderMap.get(123).getCustomerName());
+    }
+
+    @Test
+    void testAppendAfterTornRecordCutsItOff() throws Exception {
+        //Arrange: a torn last record left by an earlier run
+        OrderJournal journal = new OrderJournal(TEST_FOLDER);
+        journal.append(DATE, List.of(OrderJournal.record(OrderJournal.ADD, "1,Ada Lovelace"),
+                OrderJournal.record(OrderJournal.ADD, "2,Grace Hopper")));
+        tearLastBytes(4);
+
+        //Act: the next run appends to the same day
+        OrderJournal restartedJournal = new OrderJournal(TEST_FOLDER);
+        restartedJournal.append(DATE, List.of(OrderJournal.record(OrderJournal.ADD, "3,Alan Turing")));
+        restartedJournal.append(DATE, List.of(OrderJournal.record(OrderJournal.REMOVE, "1")));
+
+        //Assert: the torn record is gone instead of sitting in the middle of the journal
+        HashMap<Integer, Order> orderMap = replay(new OrderJournal(TEST_FOLDER));
+        assertEquals(List.of(3), List.copyOf(orderMap.keySet()));
+        assertEquals(3, Files.readAllLines(JOURNAL_FILE).size(), "ADD 1, ADD 3 and REMOVE 1");
+    }
+
+    @Test
+    void testBrokenRecordInTheMiddleIsCorruption() throws Exception {
+        //Arrange
+        OrderJournal journal = new OrderJournal(TEST_FOLDER);
+        journal.append(DATE, List.of(OrderJournal.record(OrderJournal.ADD, "1,Ada Lovelace")));
+        List<String> lines = Files.readAllLines(JOURNAL_FILE);
+        Files.write(JOURNAL_FILE, List.of(lines.get(0).replace("Ada", "Eve"), lines.get(0)));
+
+        //Act + Assert
+        assertThrows(OrderDataPersistenceException.class, () -> replay(journal));
+    }
+}
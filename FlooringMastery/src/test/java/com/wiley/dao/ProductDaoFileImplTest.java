@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,7 +26,8 @@ class ProductDaoFileImplTest {
         //create a temporary test file to simulate different scenarios
         tempFile = Files.createTempFile("testProducts", ".txt");
         new FileWriter(tempFile.toString());
-        testProductDao = new ProductDaoFileImpl(tempFile.toString());
+        //look at the file on every call, the tests change it between calls
+        testProductDao = new ProductDaoFileImpl(tempFile.toString(), 0);
     }
 
     private void writeToFile(String content) throws IOException {
@@ -159,4 +161,28 @@ class ProductDaoFileImplTest {
         assertNull(product, "Product should be null if not found");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testGetAllProductTypesAfterFileUpdate() throws Exception {
+        //Arrange
+        writeToFile("ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\n" +
+                "Carpet,2.25,2.10\n" +
+                "Tile,3.50,4.15\n");
+        ProductDaoFileImpl productDao = new ProductDaoFileImpl(tempFile.toString(), 0);
+        List<String> productTypes = productDao.getAllProductTypes();
+        long version = productDao.getCatalogVersion();
+
+        //Act
+        writeToFile("ProductType,CostPerSquareFoot,LaborCostPerSquareFoot\n" +
+                "Wood,5.15,4.75\n" +
+                "Carpet,2.25,2.10\n" +
+                "Laminate,1.75,2.10\n");
+
+        //Assert
+        assertEquals(Arrays.asList("Carpet", "Tile"), productTypes, "product types should keep the file order");
+        assertEquals(Arrays.asList("Wood", "Carpet", "Laminate"), productDao.getAllProductTypes(), "the new file should be picked up");
+        assertNull(productDao.getByProductType("Tile"), "Tile was removed from the file");
+        assertTrue(productDao.getCatalogVersion() > version, "a reload should bump the catalog version");
+        assertThrows(UnsupportedOperationException.class, () -> productDao.getAllProductTypes().add("Vinyl"),
+                "the catalog should not be modifiable by callers");
+    }
+}
@@ -24,7 +24,8 @@ class TaxDaoFileImplTest {
         //create a temporary test file to simulate different scenarios
         tempFile = Files.createTempFile("testProducts", ".txt");
         new FileWriter(tempFile.toString());
-        testTaxDao = new TaxDaoFileImpl(tempFile.toString());
+        //look at the file on every call, the tests change it between calls
+        testTaxDao = new TaxDaoFileImpl(tempFile.toString(), 0);
     }
 
     private void writeToFile(String content) throws Exception {
@@ -101,6 +102,61 @@ class TaxDaoFileImplTest {
         assertEquals("Texas", txTax2.getStateName());
     }
 
+    @Test
+    void testDeletedStateDisappearsAfterFileUpdate() throws Exception {
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,4.45\n" +
+                "WA,Washington,9.25\n");
+        assertTrue(testTaxDao.getAllStates().contains("WA"), "WA should be loaded");
+
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,4.45\n");
+
+        assertNull(testTaxDao.geByStateAbbreviation("WA"), "WA was removed from the file");
+        assertEquals(1, testTaxDao.getAllStates().size(), "only TX should be left");
+    }
+
+    @Test
+    void testFileIsNotLookedAtWithinTheCheckInterval() throws Exception {
+        //Arrange
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,4.45\n");
+        TaxDao throttledTaxDao = new TaxDaoFileImpl(tempFile.toString(), 60_000);
+        assertEquals(new BigDecimal("4.45"), throttledTaxDao.geByStateAbbreviation("TX").getTaxRate());
+
+        //Act
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,5.50\n");
+
+        //Assert
+        assertEquals(new BigDecimal("4.45"), throttledTaxDao.geByStateAbbreviation("TX").getTaxRate(),
+                "the table is served from memory until the interval is over");
+    }
 
+    @Test
+    void testUnreadableFileKeepsServingTheLastTable() throws Exception {
+        //Arrange
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,4.45\n");
+        assertEquals(new BigDecimal("4.45"), testTaxDao.geByStateAbbreviation("TX").getTaxRate());
+
+        //Act: a rate that is not a number
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,five\n");
+
+        //Assert
+        assertEquals(new BigDecimal("4.45"), testTaxDao.geByStateAbbreviation("TX").getTaxRate(),
+                "the last good table is served while the file is broken");
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,5.50\n");
+        assertEquals(new BigDecimal("5.50"), testTaxDao.geByStateAbbreviation("TX").getTaxRate(),
+                "the file is read again once it is fixed");
+    }
 
-}
\ No newline at end of file
+    @Test
+    void testUnreadableFileOnTheFirstReadIsAnError() throws Exception {
+        writeToFile("State,StateName,TaxRate\n" +
+                "TX,Texas,five\n");
+        assertThrows(RuntimeException.class, () -> testTaxDao.geByStateAbbreviation("TX"));
+    }
+}
@@ -7,7 +7,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Set;
@@ -79,6 +82,18 @@ class FlooringServiceImplTest {
         assertEquals(2, newOrder.getOrderNumber(), "with a second order created, maxId = 2");
     }
 
+    @Test
+    void testInitOnlyOnce() {
+        service.init();
+        Order firstOrder = service.createOrderAndAssignOrderNumber();
+
+        //a second session starting must not hand out the same number again
+        service.init();
+        Order secondOrder = service.createOrderAndAssignOrderNumber();
+
+        assertEquals(firstOrder.getOrderNumber() + 1, secondOrder.getOrderNumber());
+    }
+
     @Test
     void testValidateCustomerNameInformation() {
         assertDoesNotThrow(() -> service.validateCustomerNameInformation("John Doe"));
@@ -202,9 +217,26 @@ class FlooringServiceImplTest {
         assertTrue(productTypes.contains("Wood"), "Wood should be in the list");
     }
 
-
-
-
-
-
-}
\ No newline at end of file
+    @Test
+    void testImportOrders() throws IOException, OrderDataPersistenceException {
+        service.init();
+        Path importFile = Files.createTempFile("orders-import", ".csv");
+        try {
+            Files.write(importFile, List.of(
+                    "Date,CustomerName,State,ProductType,Area",
+                    "01152024,Grace Hopper,CA,Wood,150",
+                    "01152024,Bad State,NY,Wood,150",
+                    "01162024,Bad Product,CA,Marble,150",
+                    "01162024,Too Small,CA,Wood,50",
+                    "not a date,Someone,CA,Wood,150"));
+
+            OrderImportResult result = service.importOrders(importFile.toString(), 2);
+
+            assertEquals(1, result.getImportedCount(), "only the first line is valid, past dates are allowed");
+            assertEquals(4, result.getRejectedLines().size());
+            assertTrue(result.getRejectedLines().get(0).startsWith("Line 3"), "line numbers count the header");
+        } finally {
+            Files.deleteIfExists(importFile);
+        }
+    }
+}
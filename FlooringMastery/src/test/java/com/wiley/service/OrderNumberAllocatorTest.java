@@ -0,0 +1,79 @@
+package com.wiley.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderNumberAllocatorTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 10_000;
+
+    private Set<Integer> allocateConcurrently(OrderNumberAllocator allocator) throws Exception {
+        Set<Integer> orderNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                boolean allNew = true;
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    allNew &= orderNumbers.add(allocator.next());
+                }
+                return allNew;
+            }));
+        }
+        start.countDown();
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(), "no order number should be handed out twice");
+        }
+        pool.shutdown();
+        return orderNumbers;
+    }
+
+    @Test
+    void testSequentialAfterReset() {
+        OrderNumberAllocator allocator = new OrderNumberAllocator(1);
+        allocator.reset(5);
+        assertEquals(6, allocator.next());
+        assertEquals(7, allocator.next());
+        assertEquals(7, allocator.getHighestReserved());
+    }
+
+    @Test
+    void testConcurrentAllocationHasNoDuplicates() throws Exception {
+        OrderNumberAllocator allocator = new OrderNumberAllocator(1);
+        allocator.reset(0);
+
+        Set<Integer> orderNumbers = allocateConcurrently(allocator);
+
+        assertEquals(THREADS * ORDERS_PER_THREAD, orderNumbers.size());
+        assertEquals(THREADS * ORDERS_PER_THREAD, allocator.getHighestReserved(), "without leasing there are no gaps");
+    }
+
+    @Test
+    void testConcurrentBlockLeasingHasNoDuplicates() throws Exception {
+        OrderNumberAllocator allocator = new OrderNumberAllocator(64);
+        allocator.reset(100);
+
+        Set<Integer> orderNumbers = allocateConcurrently(allocator);
+
+        assertEquals(THREADS * ORDERS_PER_THREAD, orderNumbers.size());
+        assertTrue(orderNumbers.stream().allMatch(n -> n > 100 && n <= allocator.getHighestReserved()),
+                "leased numbers should start after the reset value");
+    }
+
+    @Test
+    void testResetDropsLeases() {
+        OrderNumberAllocator allocator = new OrderNumberAllocator(10);
+        allocator.reset(0);
+        assertEquals(1, allocator.next());
+        allocator.reset(50);
+        assertEquals(51, allocator.next(), "the old lease should not be used after a reset");
+    }
+}
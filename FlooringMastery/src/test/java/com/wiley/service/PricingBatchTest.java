@@ -0,0 +1,93 @@
+package com.wiley.service;
+
+import com.wiley.dao.OrderDaoStubImpl;
+import com.wiley.dao.ProductDaoStubImpl;
+import com.wiley.dao.TaxDaoStubImpl;
+import com.wiley.model.Money;
+import com.wiley.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingBatchTest {
+
+    @Test
+    void testPriceBatchMatchesPerOrderCalculations() {
+        //Arrange
+        FlooringService service = new FlooringServiceImpl(null, null, null);
+        Random random = new Random(11);
+        //several chunks, so the batch is priced in parallel
+        PricingBatch batch = new PricingBatch(50_000);
+        for (int row = 0; row < batch.size(); row++) {
+            batch.set(row, 10_000 + random.nextInt(10_000_000), random.nextInt(10_000),
+                    random.nextInt(10_000), random.nextInt(5_000));
+        }
+
+        //Act
+        service.priceBatch(batch);
+
+        //Assert
+        for (int row = 0; row < batch.size(); row++) {
+            Order order = new Order(row);
+            order.setArea(Money.toBigDecimal(batch.getAreaHundredths(row)));
+            order.setCostPerSquareFoot(Money.toBigDecimal(batch.getCostPerSquareFootCents(row)));
+            order.setLaborCostPerSquareFoot(Money.toBigDecimal(batch.getLaborCostPerSquareFootCents(row)));
+            order.setTaxRate(Money.toBigDecimal(batch.getTaxRateHundredths(row)));
+            order.setMaterialCost(service.calculateMaterialCost(order));
+            order.setLaborCost(service.calculateLaborCost(order));
+            order.setTax(service.calculateTax(order));
+
+            assertEquals(order.getMaterialCost(), Money.toBigDecimal(batch.getMaterialCostCents(row)));
+            assertEquals(order.getLaborCost(), Money.toBigDecimal(batch.getLaborCostCents(row)));
+            assertEquals(order.getTax(), Money.toBigDecimal(batch.getTaxCents(row)));
+            assertEquals(service.calculateTotal(order), Money.toBigDecimal(batch.getTotalCents(row)));
+        }
+    }
+
+    @Test
+    void testRequoteDay() throws Exception {
+        //Arrange: a Wood order in CA quoted before the current prices (5.15, 4.75, 25%)
+        LocalDate date = LocalDate.of(2025, 3, 7);
+        Order oldQuote = new Order(1);
+        oldQuote.setDate(date);
+        oldQuote.setCustomerName("Ada Lovelace");
+        oldQuote.setState("CA");
+        oldQuote.setTaxRate(new BigDecimal("20.00"));
+        oldQuote.setProductType("Wood");
+        oldQuote.setArea(new BigDecimal("100.00"));
+        oldQuote.setCostPerSquareFoot(new BigDecimal("5.00"));
+        oldQuote.setLaborCostPerSquareFoot(new BigDecimal("4.00"));
+        oldQuote.setMaterialCost(new BigDecimal("500.00"));
+        oldQuote.setLaborCost(new BigDecimal("400.00"));
+        oldQuote.setTax(new BigDecimal("180.00"));
+        oldQuote.setTotal(new BigDecimal("1080.00"));
+        OrderDaoStubImpl orderDao = new OrderDaoStubImpl(oldQuote);
+        FlooringService service = new FlooringServiceImpl(orderDao, new ProductDaoStubImpl(), new TaxDaoStubImpl());
+
+        //Act
+        int requoted = service.requoteDay(date);
+
+        //Assert
+        assertEquals(1, requoted);
+        assertEquals(new BigDecimal("5.15"), orderDao.onlyOrder.getCostPerSquareFoot());
+        assertEquals(new BigDecimal("515.00"), orderDao.onlyOrder.getMaterialCost());
+        assertEquals(new BigDecimal("475.00"), orderDao.onlyOrder.getLaborCost());
+        assertEquals(new BigDecimal("247.50"), orderDao.onlyOrder.getTax());
+        assertEquals(new BigDecimal("1237.50"), orderDao.onlyOrder.getTotal());
+        assertEquals(0, service.requoteDay(date), "a second re-quote finds nothing to change");
+    }
+
+    @Test
+    void testRequoteSkipsUnknownProducts() throws Exception {
+        //the default stub order is Tile, which the product stub doesn't have
+        OrderDaoStubImpl orderDao = new OrderDaoStubImpl();
+        FlooringService service = new FlooringServiceImpl(orderDao, new ProductDaoStubImpl(), new TaxDaoStubImpl());
+
+        assertEquals(0, service.requoteAll(LocalDate.of(2025, 1, 1)));
+        assertEquals(new BigDecimal("2381.06"), orderDao.onlyOrder.getTotal());
+    }
+}
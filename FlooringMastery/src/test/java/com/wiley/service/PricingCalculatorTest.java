@@ -0,0 +1,101 @@
+package com.wiley.service;
+
+import com.wiley.model.Money;
+import com.wiley.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingCalculatorTest {
+    // the calculations don't touch the DAOs
+    private final FlooringService service = new FlooringServiceImpl(null, null, null);
+
+    @Test
+    void testRoundHalfUp() {
+        assertEquals(2, PricingCalculator.roundHalfUp(150, 100), "a half rounds up");
+        assertEquals(1, PricingCalculator.roundHalfUp(149, 100));
+        assertEquals(-2, PricingCalculator.roundHalfUp(-150, 100), "a negative half rounds away from zero");
+        assertEquals(-1, PricingCalculator.roundHalfUp(-149, 100));
+        assertEquals(0, PricingCalculator.roundHalfUp(0, 100));
+    }
+
+    @Test
+    void testSampleOrder() {
+        //the Ada Lovelace order of the sample files
+        long materialCost = PricingCalculator.costCents(24900, 350);
+        long laborCost = PricingCalculator.costCents(24900, 415);
+        long tax = PricingCalculator.taxCents(materialCost, laborCost, 2500);
+
+        assertEquals(87150, materialCost);
+        assertEquals(103335, laborCost);
+        assertEquals(47621, tax);
+        assertEquals(238106, PricingCalculator.totalCents(materialCost, laborCost, tax));
+    }
+
+    @Test
+    void testTaxRateIsRoundedToWholePercent() {
+        //4.45% is charged as 4%, 4.50% as 5%
+        assertEquals(4000, PricingCalculator.taxCents(50000, 50000, 445));
+        assertEquals(5000, PricingCalculator.taxCents(50000, 50000, 450));
+    }
+
+    @Test
+    void testOverflowThrows() {
+        assertThrows(ArithmeticException.class, () -> PricingCalculator.costCents(Long.MAX_VALUE / 10, 1000));
+    }
+
+    @Test
+    void testMoneyConversions() {
+        assertEquals(12345, Money.centsOf(new BigDecimal("123.45")));
+        assertEquals(12300, Money.centsOf(new BigDecimal("123")));
+        assertEquals(12340, Money.centsOf(new BigDecimal("123.4")));
+        assertEquals(-5, Money.centsOf(new BigDecimal("-0.05")));
+        assertEquals(9_999_999_999_999_999L * 100, Money.centsOf(new BigDecimal("9999999999999999")), "16 digits still fit");
+        assertEquals(new BigDecimal("123.45"), Money.toBigDecimal(12345));
+        assertFalse(Money.isRepresentable(new BigDecimal("1.005")), "three decimals need rounding");
+        assertFalse(Money.isRepresentable(new BigDecimal("1E+3")), "a negative scale is left to BigDecimal");
+        assertThrows(ArithmeticException.class, () -> Money.centsOf(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void testSameResultsAsBigDecimal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            Order order = new Order(i);
+            //mix of scales, including three decimals that have to take the BigDecimal path
+            order.setArea(BigDecimal.valueOf(random.nextInt(10_000_000), random.nextInt(4)));
+            order.setCostPerSquareFoot(BigDecimal.valueOf(random.nextInt(10_000), random.nextInt(4)));
+            order.setLaborCostPerSquareFoot(BigDecimal.valueOf(random.nextInt(10_000), 2));
+            order.setTaxRate(BigDecimal.valueOf(random.nextInt(5_000), random.nextInt(3)));
+
+            BigDecimal materialCost = order.getArea().multiply(order.getCostPerSquareFoot()).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal laborCost = order.getArea().multiply(order.getLaborCostPerSquareFoot()).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(materialCost, service.calculateMaterialCost(order), order.getArea() + " * " + order.getCostPerSquareFoot());
+            assertEquals(laborCost, service.calculateLaborCost(order));
+
+            order.setMaterialCost(materialCost);
+            order.setLaborCost(laborCost);
+            BigDecimal percentage = order.getTaxRate().setScale(0, RoundingMode.HALF_UP).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+            BigDecimal tax = materialCost.add(laborCost).multiply(percentage).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(tax, service.calculateTax(order), "tax at " + order.getTaxRate());
+
+            order.setTax(tax);
+            assertEquals(materialCost.add(laborCost).add(tax), service.calculateTotal(order));
+        }
+    }
+
+    @Test
+    void testTotalKeepsBigDecimalScale() {
+        //whole numbers added up stay whole numbers, like BigDecimal.add
+        Order order = new Order(1);
+        order.setMaterialCost(new BigDecimal("700"));
+        order.setLaborCost(new BigDecimal("800"));
+        order.setTax(new BigDecimal("375"));
+
+        assertEquals(new BigDecimal("1875"), service.calculateTotal(order));
+    }
+}
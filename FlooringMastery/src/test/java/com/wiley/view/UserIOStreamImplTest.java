@@ -0,0 +1,55 @@
+package com.wiley.view;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserIOStreamImplTest {
+
+    private static UserIOStreamImpl ioOver(String input, ByteArrayOutputStream output) {
+        return new UserIOStreamImpl(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                output, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testReadsLinesAndWritesPrompts() {
+        //Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UserIOStreamImpl io = ioOver("Ada Lovelace\n42\n", output);
+
+        //Act
+        String name = io.readString("Name?");
+        int number = io.readInt("Number?");
+
+        //Assert
+        assertEquals("Ada Lovelace", name);
+        assertEquals(42, number);
+        assertEquals("Name?\nNumber?\n", output.toString(StandardCharsets.UTF_8).replace("\r\n", "\n"));
+    }
+
+    @Test
+    void testRangeReadAsksAgainUntilInRange() {
+        //Arrange
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UserIOStreamImpl io = ioOver("0\n9\n3\n", output);
+
+        //Act
+        int number = io.readInt("1 to 7?", 1, 7);
+
+        //Assert
+        assertEquals(3, number);
+        assertEquals(3, output.toString(StandardCharsets.UTF_8).split("\n").length, "asked three times");
+    }
+
+    @Test
+    void testEndOfInputThrows() {
+        UserIOStreamImpl io = ioOver("", new ByteArrayOutputStream());
+
+        assertThrows(NoSuchElementException.class, () -> io.readString("Name?"));
+    }
+}